@@ -0,0 +1,208 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.point.Point2i;
+import net.querz.nbt.io.NBTDeserializer;
+import net.querz.nbt.io.NBTSerializer;
+import net.querz.nbt.io.NamedTag;
+import net.querz.nbt.tag.CompoundTag;
+import net.querz.nbt.tag.DoubleTag;
+import net.querz.nbt.tag.ListTag;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// the chunks the benchmarks work on, either read from a region file or generated
+final class BenchmarkChunks {
+
+	// 1.15.2
+	private static final int DATA_VERSION = 2230;
+	private static final int GENERATED_CHUNKS = 64;
+
+	private BenchmarkChunks() {}
+
+	static final class Chunk {
+
+		final byte[] data;
+		final CompressionType compressionType;
+		final Point2i location;
+
+		private Chunk(byte[] data, CompressionType compressionType, Point2i location) {
+			this.data = data;
+			this.compressionType = compressionType;
+			this.location = location;
+		}
+
+		CompoundTag decode() throws IOException {
+			DataInputStream in = ChunkCodec.get().decompress(compressionType, data, 0, data.length);
+			return (CompoundTag) new NBTDeserializer(false).fromStream(in).getTag();
+		}
+	}
+
+	// loads all chunks of the region file, or generates chunks if regionFile is empty
+	static List<Chunk> load(String regionFile) throws IOException {
+		if (regionFile == null || regionFile.isEmpty()) {
+			return generate();
+		}
+		File file = new File(regionFile);
+		MCAFile mcaFile = MCAFile.readAllRaw(file, new ByteArrayPointer(Files.readAllBytes(file.toPath())));
+		if (mcaFile == null) {
+			throw new IOException("failed to read region file " + regionFile);
+		}
+		List<Chunk> chunks = new ArrayList<>();
+		for (int i = 0; i < 1024; i++) {
+			MCAChunkData chunk = mcaFile.getLoadedChunkData(i);
+			if (chunk != null && !chunk.isEmpty() && chunk.isRaw()) {
+				chunks.add(new Chunk(chunk.getCompressedData(), chunk.getCompressionType(), chunk.getAbsoluteLocation()));
+			}
+		}
+		if (chunks.isEmpty()) {
+			throw new IOException("region file " + regionFile + " does not contain any chunks");
+		}
+		return chunks;
+	}
+
+	static byte[] encode(CompoundTag data, CompressionType compressionType) throws IOException {
+		ChunkCodec codec = ChunkCodec.get();
+		ChunkCodec.Buffer buffer = codec.getOutputBuffer();
+		new NBTSerializer(false).toStream(new NamedTag(null, data), buffer);
+		return codec.compress(compressionType, buffer);
+	}
+
+	// chunks with 16 sections of random blocks and a few entities, tile entities and tile ticks in each section
+	private static List<Chunk> generate() throws IOException {
+		Random random = new Random(0);
+		List<Chunk> chunks = new ArrayList<>(GENERATED_CHUNKS);
+		for (int i = 0; i < GENERATED_CHUNKS; i++) {
+			Point2i location = new Point2i(i & 0x7, i >> 3);
+			chunks.add(new Chunk(encode(generateChunk(location, random), CompressionType.ZLIB), CompressionType.ZLIB, location));
+		}
+		return chunks;
+	}
+
+	private static CompoundTag generateChunk(Point2i location, Random random) {
+		CompoundTag level = new CompoundTag();
+		level.putInt("xPos", location.getX());
+		level.putInt("zPos", location.getY());
+		level.putString("Status", "full");
+		level.putLong("InhabitedTime", random.nextInt(100000));
+
+		ListTag<CompoundTag> sections = new ListTag<>(CompoundTag.class);
+		ListTag<CompoundTag> entities = new ListTag<>(CompoundTag.class);
+		ListTag<CompoundTag> tileEntities = new ListTag<>(CompoundTag.class);
+		ListTag<CompoundTag> tileTicks = new ListTag<>(CompoundTag.class);
+		for (int y = 0; y < 16; y++) {
+			CompoundTag section = new CompoundTag();
+			section.putByte("Y", (byte) y);
+			ListTag<CompoundTag> palette = new ListTag<>(CompoundTag.class);
+			for (int p = 0; p < 16; p++) {
+				CompoundTag block = new CompoundTag();
+				block.putString("Name", "minecraft:block_" + random.nextInt(600));
+				palette.add(block);
+			}
+			section.put("Palette", palette);
+			section.putLongArray("BlockStates", generateBlockStates(random));
+			section.putByteArray("BlockLight", generateLight(random, y * 16, false));
+			section.putByteArray("SkyLight", generateLight(random, y * 16, true));
+			sections.add(section);
+
+			for (int j = 0; j < 2; j++) {
+				CompoundTag entity = new CompoundTag();
+				entity.putString("id", "minecraft:pig");
+				ListTag<DoubleTag> pos = new ListTag<>(DoubleTag.class);
+				pos.addDouble(location.getX() * 16 + random.nextDouble() * 16);
+				pos.addDouble(y * 16 + random.nextDouble() * 16);
+				pos.addDouble(location.getY() * 16 + random.nextDouble() * 16);
+				entity.put("Pos", pos);
+				entity.putIntArray("UUID", new int[]{random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()});
+				entity.putFloat("Health", 10);
+				entities.add(entity);
+
+				CompoundTag tileEntity = new CompoundTag();
+				tileEntity.putString("id", "minecraft:chest");
+				tileEntity.putInt("x", location.getX() * 16 + random.nextInt(16));
+				tileEntity.putInt("y", y * 16 + random.nextInt(16));
+				tileEntity.putInt("z", location.getY() * 16 + random.nextInt(16));
+				tileEntity.put("Items", new ListTag<>(CompoundTag.class));
+				tileEntities.add(tileEntity);
+
+				CompoundTag tileTick = new CompoundTag();
+				tileTick.putString("i", "minecraft:water");
+				tileTick.putInt("x", location.getX() * 16 + random.nextInt(16));
+				tileTick.putInt("y", y * 16 + random.nextInt(16));
+				tileTick.putInt("z", location.getY() * 16 + random.nextInt(16));
+				tileTick.putInt("t", random.nextInt(20));
+				tileTick.putInt("p", 0);
+				tileTicks.add(tileTick);
+			}
+		}
+		level.put("Sections", sections);
+		level.put("Entities", entities);
+		level.put("TileEntities", tileEntities);
+		level.put("TileTicks", tileTicks);
+		level.put("LiquidTicks", new ListTag<>(CompoundTag.class));
+
+		int[] biomes = new int[1024];
+		for (int i = 0; i < biomes.length; i++) {
+			biomes[i] = random.nextInt(8);
+		}
+		level.putIntArray("Biomes", biomes);
+
+		CompoundTag heightmaps = new CompoundTag();
+		heightmaps.putLongArray("MOTION_BLOCKING", randomLongs(random, 36));
+		heightmaps.putLongArray("WORLD_SURFACE", randomLongs(random, 36));
+		level.put("Heightmaps", heightmaps);
+
+		CompoundTag structures = new CompoundTag();
+		structures.put("References", new CompoundTag());
+		structures.put("Starts", new CompoundTag());
+		level.put("Structures", structures);
+
+		CompoundTag root = new CompoundTag();
+		root.put("Level", level);
+		root.putInt("DataVersion", DATA_VERSION);
+		return root;
+	}
+
+	private static long[] randomLongs(Random random, int length) {
+		long[] longs = new long[length];
+		for (int i = 0; i < length; i++) {
+			longs[i] = random.nextLong();
+		}
+		return longs;
+	}
+
+	// 4 bits per block, with one palette index for each layer of blocks and some random blocks, like ores in stone
+	private static long[] generateBlockStates(Random random) {
+		long[] blockStates = new long[256];
+		for (int y = 0; y < 16; y++) {
+			long layer = random.nextInt(4);
+			for (int i = 0; i < 16; i++) {
+				long blocks = 0;
+				for (int b = 0; b < 16; b++) {
+					blocks |= (random.nextInt(16) == 0 ? random.nextInt(16) : layer) << b * 4;
+				}
+				blockStates[y * 16 + i] = blocks;
+			}
+		}
+		return blockStates;
+	}
+
+	// 4 bits per block with some random light sources. sky light is 15 above a random height around 64 and darker below.
+	private static byte[] generateLight(Random random, int sectionY, boolean sky) {
+		byte[] light = new byte[2048];
+		int surface = 56 + random.nextInt(16);
+		for (int i = 0; i < light.length; i++) {
+			int y = sectionY + (i >> 7);
+			int level = !sky ? 0 : y >= surface ? 15 : Math.max(0, 15 - (surface - y));
+			if (random.nextInt(64) == 0) {
+				level = random.nextInt(16);
+			}
+			light[i] = (byte) (level << 4 | level);
+		}
+		return light;
+	}
+}
@@ -0,0 +1,85 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// deflates the chunks of a region with ChunkCodec.compress() for each compression level and strategy in settings.ini.
+// the size of the compressed chunks compared to their uncompressed size is printed once for each combination.
+// run with ./gradlew jmh, or with java -jar build/libs/mcaselector-<version>-jmh.jar -p regionFile=<file> to compress the chunks of a region file
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkCompressionBenchmark {
+
+	@Param("")
+	public String regionFile;
+
+	@Param({"1", "6", "9"})
+	public int compressionLevel;
+
+	@Param({"DEFAULT", "FILTERED", "HUFFMAN_ONLY"})
+	public CompressionStrategy compressionStrategy;
+
+	private byte[][] chunks;
+	private int index;
+
+	@Setup
+	public void setup() throws IOException {
+		Config.setCompressionLevel(compressionLevel);
+		Config.setCompressionStrategy(compressionStrategy);
+
+		List<BenchmarkChunks.Chunk> loaded = BenchmarkChunks.load(regionFile);
+		chunks = new byte[loaded.size()][];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = decompress(loaded.get(i));
+		}
+
+		long uncompressed = 0, compressed = 0;
+		for (byte[] chunk : chunks) {
+			uncompressed += chunk.length;
+			compressed += compress(chunk).length;
+		}
+		System.out.printf("%ncompressed %d chunks from %d to %d bytes (%.1f%%)%n",
+				chunks.length, uncompressed, compressed, compressed * 100.0 / uncompressed);
+	}
+
+	@Benchmark
+	public byte[] compress() {
+		index = (index + 1) % chunks.length;
+		return compress(chunks[index]);
+	}
+
+	private static byte[] compress(byte[] chunk) {
+		ChunkCodec codec = ChunkCodec.get();
+		ChunkCodec.Buffer buffer = codec.getOutputBuffer();
+		buffer.write(chunk, 0, chunk.length);
+		return codec.compress(CompressionType.ZLIB, buffer);
+	}
+
+	private static byte[] decompress(BenchmarkChunks.Chunk chunk) throws IOException {
+		DataInputStream in = ChunkCodec.get().decompress(chunk.compressionType, chunk.data, 0, chunk.data.length);
+		if (in == null) {
+			throw new IOException("unsupported compression type " + chunk.compressionType);
+		}
+		byte[] data = new byte[in.available()];
+		in.readFully(data);
+		return data;
+	}
+}
@@ -0,0 +1,76 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.range.Range;
+import net.querz.mcaselector.range.RangeParser;
+import net.querz.mcaselector.version.VersionController;
+import net.querz.nbt.tag.CompoundTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// merges the sections of one chunk into another chunk of the same region, like --mode import with --sections does.
+// mergeTree decodes both chunks like chunks are merged if one of them is not raw, mergeRaw merges them on their nbt data.
+// run with ./gradlew jmh, or with java -jar build/libs/mcaselector-<version>-jmh.jar -p regionFile=<file> to merge the chunks of a region file
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkMergeBenchmark {
+
+	@Param("")
+	public String regionFile;
+
+	@Param("0:4")
+	public String sections;
+
+	private List<BenchmarkChunks.Chunk> chunks;
+	private List<Range> ranges;
+	private int index;
+
+	@Setup
+	public void setup() throws IOException {
+		chunks = BenchmarkChunks.load(regionFile);
+		ranges = RangeParser.parseRanges(sections, ",");
+	}
+
+	@Benchmark
+	public byte[] mergeTree() throws IOException {
+		BenchmarkChunks.Chunk source = nextSource();
+		BenchmarkChunks.Chunk destination = destination();
+		CompoundTag sourceData = source.decode();
+		CompoundTag destinationData = destination.decode();
+		VersionController.getChunkDataProcessor(sourceData.getInt("DataVersion")).mergeChunks(sourceData, destinationData, ranges);
+		return BenchmarkChunks.encode(destinationData, destination.compressionType);
+	}
+
+	@Benchmark
+	public byte[] mergeRaw() throws IOException {
+		BenchmarkChunks.Chunk source = nextSource();
+		BenchmarkChunks.Chunk destination = destination();
+		return ChunkMerger.merge(source.data, source.compressionType, source.location,
+				destination.data, destination.compressionType, destination.location, ranges);
+	}
+
+	private BenchmarkChunks.Chunk nextSource() {
+		index = (index + 1) % chunks.size();
+		return chunks.get(index);
+	}
+
+	// the chunk after the source chunk
+	private BenchmarkChunks.Chunk destination() {
+		return chunks.get((index + 1) % chunks.size());
+	}
+}
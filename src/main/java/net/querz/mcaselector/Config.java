@@ -1,5 +1,6 @@
 package net.querz.mcaselector;
 
+import net.querz.mcaselector.io.CompressionStrategy;
 import net.querz.mcaselector.tiles.Tile;
 import net.querz.mcaselector.ui.Color;
 import net.querz.mcaselector.debug.Debug;
@@ -7,6 +8,7 @@ import net.querz.mcaselector.text.Translation;
 import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.zip.Deflater;
 
 public final class Config {
 
@@ -42,6 +44,9 @@ public final class Config {
 	public static final int DEFAULT_MAX_LOADED_FILES = (int) Math.max(Math.ceil(Runtime.getRuntime().maxMemory() / 1_000_000_000D) * 2, 1);
 	public static final boolean DEFAULT_SHADE = true;
 	public static final boolean DEFAULT_SHADE_WATER = true;
+	public static final boolean DEFAULT_CHECK_BLOCK_STATES = false;
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+	public static final CompressionStrategy DEFAULT_COMPRESSION_STRATEGY = CompressionStrategy.DEFAULT;
 	public static final boolean DEFAULT_DEBUG = false;
 
 	private static File worldDir = null;
@@ -59,10 +64,15 @@ public final class Config {
 	private static int maxLoadedFiles = DEFAULT_MAX_LOADED_FILES;
 	private static boolean shade = DEFAULT_SHADE;
 	private static boolean shadeWater = DEFAULT_SHADE_WATER;
+	private static boolean checkBlockStates = DEFAULT_CHECK_BLOCK_STATES;
+	private static int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+	private static CompressionStrategy compressionStrategy = DEFAULT_COMPRESSION_STRATEGY;
 
 	private static boolean debug = DEFAULT_DEBUG;
 
 	public static final float MAX_SCALE = 7.9999f;
+	// above MAX_SCALE the TileMap switches to the overview images with one pixel per chunk
+	public static final float MAX_OVERVIEW_SCALE = 31.9999f;
 	public static final float MIN_SCALE = 0.2f;
 	public static final double IMAGE_POOL_SIZE = 2.5;
 
@@ -90,6 +100,14 @@ public final class Config {
 		return cacheDir;
 	}
 
+	public static File getOverviewCacheDir() {
+		return new File(getCacheDir(), "overview");
+	}
+
+	public static File getIndexCacheDir() {
+		return new File(getCacheDir(), "index");
+	}
+
 	public static void setCacheDir(File cacheDir) {
 		Config.cacheDir = cacheDir;
 	}
@@ -123,6 +141,15 @@ public final class Config {
 		return Config.shadeWater;
 	}
 
+	public static void setCheckBlockStates(boolean checkBlockStates) {
+		Config.checkBlockStates = checkBlockStates;
+	}
+
+	// whether the palette filter only matches palette entries that are referenced in the block states
+	public static boolean checkBlockStates() {
+		return Config.checkBlockStates;
+	}
+
 	public static void setDebug(boolean debug) {
 		if (debug && !Config.debug) {
 			Config.debug = true;
@@ -196,6 +223,18 @@ public final class Config {
 			maxLoadedFiles = Integer.parseInt(config.getOrDefault("MaxLoadedFiles", DEFAULT_MAX_LOADED_FILES + ""));
 			shade = Boolean.parseBoolean(config.getOrDefault("Shade", DEFAULT_SHADE + ""));
 			shadeWater = Boolean.parseBoolean(config.getOrDefault("ShadeWater", DEFAULT_SHADE_WATER + ""));
+			checkBlockStates = Boolean.parseBoolean(config.getOrDefault("CheckBlockStates", DEFAULT_CHECK_BLOCK_STATES + ""));
+			compressionLevel = Integer.parseInt(config.getOrDefault("CompressionLevel", DEFAULT_COMPRESSION_LEVEL + ""));
+			if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+				Debug.errorf("invalid compression level %d in settings.ini, using %d", compressionLevel, DEFAULT_COMPRESSION_LEVEL);
+				compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+			}
+			try {
+				compressionStrategy = CompressionStrategy.fromString(config.getOrDefault("CompressionStrategy", DEFAULT_COMPRESSION_STRATEGY + ""));
+			} catch (IllegalArgumentException ex) {
+				Debug.errorf("%s in settings.ini, using %s", ex.getMessage(), DEFAULT_COMPRESSION_STRATEGY);
+				compressionStrategy = DEFAULT_COMPRESSION_STRATEGY;
+			}
 			debug = Boolean.parseBoolean(config.getOrDefault("Debug", DEFAULT_DEBUG + ""));
 		} catch (Exception ex) {
 			Debug.dumpException("error loading settings.ini", ex);
@@ -220,6 +259,9 @@ public final class Config {
 		addSettingsLine("MaxLoadedFiles", maxLoadedFiles, DEFAULT_MAX_LOADED_FILES, lines);
 		addSettingsLine("Shade", shade, DEFAULT_SHADE, lines);
 		addSettingsLine("ShadeWater", shadeWater, DEFAULT_SHADE_WATER, lines);
+		addSettingsLine("CheckBlockStates", checkBlockStates, DEFAULT_CHECK_BLOCK_STATES, lines);
+		addSettingsLine("CompressionLevel", compressionLevel, DEFAULT_COMPRESSION_LEVEL, lines);
+		addSettingsLine("CompressionStrategy", compressionStrategy, DEFAULT_COMPRESSION_STRATEGY, lines);
 		addSettingsLine("Debug", debug, DEFAULT_DEBUG, lines);
 		if (lines.size() == 0) {
 			if (file.exists() && !file.delete()) {
@@ -288,6 +330,23 @@ public final class Config {
 		Config.maxLoadedFiles = maxLoadedFiles;
 	}
 
+	// the deflate level used for chunks that are compressed again, from 0 (none) to 9 (best), or -1 for the default level
+	public static int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public static void setCompressionLevel(int compressionLevel) {
+		Config.compressionLevel = compressionLevel;
+	}
+
+	public static CompressionStrategy getCompressionStrategy() {
+		return compressionStrategy;
+	}
+
+	public static void setCompressionStrategy(CompressionStrategy compressionStrategy) {
+		Config.compressionStrategy = compressionStrategy;
+	}
+
 	public static int getMaxZoomLevel() {
 		return Tile.getZoomLevel(MAX_SCALE);
 	}
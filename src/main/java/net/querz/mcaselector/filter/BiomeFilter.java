@@ -1,8 +1,10 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
 import net.querz.mcaselector.text.TextHelper;
 import net.querz.mcaselector.debug.Debug;
-import net.querz.mcaselector.version.VersionController;
+import net.querz.mcaselector.version.BiomeSet;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -13,6 +15,9 @@ public class BiomeFilter extends TextFilter<List<Integer>> {
 	private static final Map<String, Integer> validNames = new HashMap<>();
 	private static final Set<Integer> validIDs = new HashSet<>();
 
+	// the value compiled into a bitmask, recreated whenever the value changes
+	private transient BiomeSet biomeSet;
+
 	static {
 		try (BufferedReader bis = new BufferedReader(
 				new InputStreamReader(Objects.requireNonNull(BiomeFilter.class.getClassLoader().getResourceAsStream("biomes.csv"))))) {
@@ -68,7 +73,37 @@ public class BiomeFilter extends TextFilter<List<Integer>> {
 
 	@Override
 	public boolean contains(List<Integer> value, FilterData data) {
-		return VersionController.getChunkFilter(data.getChunk().getInt("DataVersion")).matchBiomeIDs(data.getChunk(), value.stream().mapToInt(i->i).toArray());
+		BiomeSet biomes = data.getBiomes();
+		return biomes != null && biomes.containsAll(getBiomeSet(value));
+	}
+
+	private BiomeSet getBiomeSet(List<Integer> value) {
+		if (value != this.value) {
+			return BiomeSet.of(value.stream().mapToInt(i -> i).toArray());
+		}
+		if (biomeSet == null) {
+			biomeSet = BiomeSet.of(value.stream().mapToInt(i -> i).toArray());
+		}
+		return biomeSet;
+	}
+
+	@Override
+	public void setValue(List<Integer> value) {
+		super.setValue(value);
+		biomeSet = null;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
+	}
+
+	@Override
+	public boolean mayMatch(RegionSummary summary) {
+		if (getComparator() != Comparator.CONTAINS) {
+			return true;
+		}
+		return summary.getBiomes() != null && summary.getBiomes().containsAll(getBiomeSet(value));
 	}
 
 	@Override
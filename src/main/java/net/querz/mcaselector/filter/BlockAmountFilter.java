@@ -0,0 +1,175 @@
+package net.querz.mcaselector.filter;
+
+import net.querz.mcaselector.index.RegionSummary;
+import net.querz.mcaselector.version.BlockHistogram;
+import net.querz.mcaselector.version.BlockNameSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// the amount of blocks with one of the given names in a chunk, optionally limited to a range of y levels.
+// the block states of a chunk are only decoded once for all block amount filters.
+public class BlockAmountFilter extends TextFilter<List<String>> {
+
+	private static final Comparator[] comparators = {
+			Comparator.EQUAL,
+			Comparator.NOT_EQUAL,
+			Comparator.LARGER,
+			Comparator.SMALLER,
+			Comparator.LARGER_EQUAL,
+			Comparator.SMALLER_EQUAL
+	};
+
+	private static final Pattern valuePattern = Pattern.compile("^(?<names>[^:]+):(?<amount>\\d+)(?::(?<minY>-?\\d+)-(?<maxY>-?\\d+))?$");
+
+	private int amount;
+	private int minY;
+	private int maxY;
+
+	private transient BlockNameSet blockNames;
+
+	public BlockAmountFilter() {
+		this(Operator.AND, Comparator.LARGER, null, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	private BlockAmountFilter(Operator operator, Comparator comparator, List<String> value, int amount, int minY, int maxY) {
+		super(FilterType.BLOCK_AMOUNT, operator, comparator, value);
+		this.amount = amount;
+		this.minY = minY;
+		this.maxY = maxY;
+		setRawValue(value == null ? "" : createRawValue());
+	}
+
+	@Override
+	public Comparator[] getComparators() {
+		return comparators;
+	}
+
+	@Override
+	public boolean matches(FilterData data) {
+		int count = count(data);
+		return count != -1 && matches(count);
+	}
+
+	// returns -1 if the chunk has no block states
+	private int count(FilterData data) {
+		BlockHistogram histogram = data.getBlockHistogram();
+		if (histogram == null) {
+			return -1;
+		}
+		return histogram.count(getBlockNames(), minY, maxY);
+	}
+
+	private boolean matches(int count) {
+		switch (getComparator()) {
+		case EQUAL:
+			return count == amount;
+		case NOT_EQUAL:
+			return count != amount;
+		case LARGER:
+			return count > amount;
+		case SMALLER:
+			return count < amount;
+		case LARGER_EQUAL:
+			return count >= amount;
+		case SMALLER_EQUAL:
+			return count <= amount;
+		}
+		return false;
+	}
+
+	// if a chunk without any of these blocks doesn't match, at least one of them has to be in the region
+	@Override
+	public boolean mayMatch(RegionSummary summary) {
+		if (matches(0)) {
+			return true;
+		}
+		for (String name : value) {
+			if (summary.mightContainBlockName("minecraft:" + name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private BlockNameSet getBlockNames() {
+		if (blockNames == null) {
+			blockNames = new BlockNameSet(value);
+		}
+		return blockNames;
+	}
+
+	// whether there is at least one of these blocks in the y range, regardless of the amount
+	@Override
+	public boolean contains(List<String> value, FilterData data) {
+		return count(data) > 0;
+	}
+
+	@Override
+	public boolean containsNot(List<String> value, FilterData data) {
+		return !contains(value, data);
+	}
+
+	@Override
+	public void setFilterValue(String raw) {
+		Matcher m = valuePattern.matcher(raw == null ? "" : raw.replace(" ", ""));
+		List<String> names;
+		if (!m.matches() || (names = PaletteFilter.parseBlockNames(m.group("names"))) == null) {
+			setValue(null);
+			setValid(false);
+			return;
+		}
+		try {
+			amount = Integer.parseInt(m.group("amount"));
+			if (m.group("minY") != null) {
+				minY = Integer.parseInt(m.group("minY"));
+				maxY = Integer.parseInt(m.group("maxY"));
+			} else {
+				minY = Integer.MIN_VALUE;
+				maxY = Integer.MAX_VALUE;
+			}
+		} catch (NumberFormatException ex) {
+			setValue(null);
+			setValid(false);
+			return;
+		}
+		if (minY > maxY) {
+			setValue(null);
+			setValid(false);
+			return;
+		}
+		setValue(names);
+		setValid(true);
+		setRawValue(raw);
+	}
+
+	@Override
+	public void setValue(List<String> value) {
+		super.setValue(value);
+		blockNames = null;
+	}
+
+	private String createRawValue() {
+		String raw = String.join(",", value) + ":" + amount;
+		if (minY != Integer.MIN_VALUE || maxY != Integer.MAX_VALUE) {
+			raw += ":" + minY + "-" + maxY;
+		}
+		return raw;
+	}
+
+	@Override
+	public String getFormatText() {
+		return "<block>[,<block>,...]:<amount>[:<minY>-<maxY>]";
+	}
+
+	@Override
+	public String toString() {
+		return "#Blocks " + getComparator().getQueryString() + " \"" + getRawValue() + "\"";
+	}
+
+	@Override
+	public BlockAmountFilter clone() {
+		return new BlockAmountFilter(getOperator(), getComparator(), value == null ? null : new ArrayList<>(value), amount, minY, maxY);
+	}
+}
@@ -15,6 +15,11 @@ public abstract class ByteFilter extends NumberFilter<Byte> {
 		return value;
 	}
 
+	@Override
+	Byte getNumber(FilterData data) {
+		return (byte) data.getField(getField());
+	}
+
 	@Override
 	protected void setFilterNumber(Byte value) {
 		this.value = value;
@@ -0,0 +1,80 @@
+package net.querz.mcaselector.filter;
+
+// the numeric values of a chunk that can be read by number filters.
+// each value is extracted at most once per chunk and stored as a primitive in the FilterData of the chunk.
+public enum ChunkField {
+
+	LAST_UPDATE {
+		@Override
+		long extract(FilterData data) {
+			return data.getLastUpdated();
+		}
+	},
+	SECTORS {
+		@Override
+		long extract(FilterData data) {
+			return data.getSectors();
+		}
+	},
+	DATA_VERSION {
+		@Override
+		long extract(FilterData data) {
+			if (data.isIndexed()) {
+				return data.getIndex().getDataVersion(data.getIndexPosition());
+			}
+			return data.getChunk().getInt("DataVersion");
+		}
+	},
+	X_POS {
+		@Override
+		long extract(FilterData data) {
+			if (data.isIndexed()) {
+				return data.getIndex().getXPos(data.getIndexPosition());
+			}
+			return data.getChunk().getCompoundTag("Level").getInt("xPos");
+		}
+	},
+	Z_POS {
+		@Override
+		long extract(FilterData data) {
+			if (data.isIndexed()) {
+				return data.getIndex().getZPos(data.getIndexPosition());
+			}
+			return data.getChunk().getCompoundTag("Level").getInt("zPos");
+		}
+	},
+	INHABITED_TIME {
+		@Override
+		long extract(FilterData data) {
+			if (data.isIndexed()) {
+				return data.getIndex().getInhabitedTime(data.getIndexPosition());
+			}
+			return data.getChunk().getCompoundTag("Level").getLong("InhabitedTime");
+		}
+	},
+	LIGHT_POPULATED {
+		@Override
+		long extract(FilterData data) {
+			if (data.isIndexed()) {
+				return data.getIndex().getLightPopulated(data.getIndexPosition());
+			}
+			return data.getChunk().getCompoundTag("Level").getByte("LightPopulated");
+		}
+	},
+	ENTITY_AMOUNT {
+		@Override
+		long extract(FilterData data) {
+			return data.getEntitySummary().getEntityAmount();
+		}
+	},
+	TILE_ENTITY_AMOUNT {
+		@Override
+		long extract(FilterData data) {
+			return data.getEntitySummary().getTileEntityAmount();
+		}
+	};
+
+	static final int COUNT = values().length;
+
+	abstract long extract(FilterData data);
+}
@@ -0,0 +1,26 @@
+package net.querz.mcaselector.filter;
+
+// the parts of a chunk a filter needs to read, ordered by how expensive it is to evaluate a filter on them
+public enum ChunkPart {
+
+	// only the region file header, no chunk data has to be read
+	HEADER(1),
+	// the length and compression type in front of the chunk data, no chunk data has to be decompressed
+	CHUNK_HEADER(2),
+	// scalar values in the root tag or the Level tag
+	LEVEL(4),
+	BIOMES(8),
+	SECTIONS(16),
+	ENTITIES(32),
+	TILE_ENTITIES(32);
+
+	private final int cost;
+
+	ChunkPart(int cost) {
+		this.cost = cost;
+	}
+
+	public int getCost() {
+		return cost;
+	}
+}
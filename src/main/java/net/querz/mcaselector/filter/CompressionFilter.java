@@ -0,0 +1,82 @@
+package net.querz.mcaselector.filter;
+
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.io.CompressionType;
+
+// the compression type of a chunk, read from the 5 bytes in front of the chunk data without decompressing it
+public class CompressionFilter extends TextFilter<CompressionType> {
+
+	private static final Comparator[] comparators = {
+			Comparator.EQUAL,
+			Comparator.NOT_EQUAL
+	};
+
+	public CompressionFilter() {
+		this(Operator.AND, Comparator.EQUAL, CompressionType.ZLIB);
+	}
+
+	private CompressionFilter(Operator operator, Comparator comparator, CompressionType value) {
+		super(FilterType.COMPRESSION, operator, comparator, value);
+		setRawValue(value == null ? null : value.name().toLowerCase());
+	}
+
+	@Override
+	public Comparator[] getComparators() {
+		return comparators;
+	}
+
+	@Override
+	public boolean matches(FilterData data) {
+		switch (getComparator()) {
+		case EQUAL:
+			return contains(value, data);
+		case NOT_EQUAL:
+			return containsNot(value, data);
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(CompressionType value, FilterData data) {
+		return data.getCompressionType() == value;
+	}
+
+	@Override
+	public boolean containsNot(CompressionType value, FilterData data) {
+		return data.getCompressionType() != value;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
+	}
+
+	@Override
+	public void setFilterValue(String raw) {
+		for (CompressionType type : CompressionType.values()) {
+			if (type.name().equalsIgnoreCase(raw)) {
+				setValue(type);
+				setRawValue(raw);
+				setValid(true);
+				return;
+			}
+		}
+		setValue(null);
+		setValid(false);
+	}
+
+	@Override
+	public String getFormatText() {
+		return "gzip|zlib|none";
+	}
+
+	@Override
+	public String toString() {
+		return "Compression " + getComparator().getQueryString() + " " + getRawValue();
+	}
+
+	@Override
+	public CompressionFilter clone() {
+		return new CompressionFilter(getOperator(), getComparator(), value);
+	}
+}
@@ -1,5 +1,7 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
+
 public class DataVersionFilter extends IntFilter {
 
 	public DataVersionFilter() {
@@ -11,8 +13,13 @@ public class DataVersionFilter extends IntFilter {
 	}
 
 	@Override
-	protected Integer getNumber(FilterData data) {
-		return data.getChunk().getInt("DataVersion");
+	ChunkField getField() {
+		return ChunkField.DATA_VERSION;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
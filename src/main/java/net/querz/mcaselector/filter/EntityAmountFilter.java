@@ -1,8 +1,6 @@
 package net.querz.mcaselector.filter;
 
-import net.querz.nbt.tag.ListTag;
-import net.querz.nbt.tag.LongArrayTag;
-import net.querz.nbt.tag.Tag;
+import net.querz.mcaselector.index.RegionIndex;
 
 public class EntityAmountFilter extends IntFilter {
 
@@ -15,12 +13,13 @@ public class EntityAmountFilter extends IntFilter {
 	}
 
 	@Override
-	protected Integer getNumber(FilterData data) {
-		Tag<?> rawEntities = data.getChunk().getCompoundTag("Level").get("Entities");
-		if (rawEntities == null || rawEntities.getID() == LongArrayTag.ID) {
-			return 0;
-		}
-		return ((ListTag<?>) rawEntities).asCompoundTagList().size();
+	ChunkField getField() {
+		return ChunkField.ENTITY_AMOUNT;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -1,10 +1,8 @@
 package net.querz.mcaselector.filter;
 
 import net.querz.mcaselector.debug.Debug;
-import net.querz.nbt.tag.CompoundTag;
-import net.querz.nbt.tag.ListTag;
-import net.querz.nbt.tag.LongArrayTag;
-import net.querz.nbt.tag.Tag;
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -46,19 +44,23 @@ public class EntityFilter extends TextFilter<List<String>> {
 
 	@Override
 	public boolean contains(List<String> value, FilterData data) {
-		Tag<?> rawEntities = data.getChunk().getCompoundTag("Level").get("Entities");
-		if (rawEntities == null || rawEntities.getID() == LongArrayTag.ID) {
-			return false;
+		return data.getEntitySummary().containsEntities(value);
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
+	}
+
+	@Override
+	public boolean mayMatch(RegionSummary summary) {
+		if (getComparator() != Comparator.CONTAINS) {
+			return true;
 		}
-		ListTag<CompoundTag> entities = ((ListTag<?>) rawEntities).asCompoundTagList();
-		nameLoop: for (String name : getFilterValue()) {
-			for (CompoundTag entity : entities) {
-				String id = entity.getString("id");
-				if (name.equals(id)) {
-					continue nameLoop;
-				}
+		for (String id : value) {
+			if (!summary.mightContainEntityID(id)) {
+				return false;
 			}
-			return false;
 		}
 		return true;
 	}
@@ -1,5 +1,7 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
 import java.io.Serializable;
 
 public abstract class Filter<T> implements Serializable {
@@ -67,5 +69,15 @@ public abstract class Filter<T> implements Serializable {
 
 	public abstract boolean matches(FilterData data);
 
+	// whether this filter can be evaluated with only the values stored in the index
+	public boolean isIndexed(RegionIndex index) {
+		return false;
+	}
+
+	// returns false if this filter can't match any chunk in the region described by this summary
+	public boolean mayMatch(RegionSummary summary) {
+		return true;
+	}
+
 	public abstract Filter<T> clone();
 }
@@ -1,22 +1,131 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.EntitySummary;
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.io.CompressionType;
+import net.querz.mcaselector.io.MCAChunkData;
+import net.querz.mcaselector.version.BiomeSet;
+import net.querz.mcaselector.version.BlockHistogram;
+import net.querz.mcaselector.version.VersionController;
 import net.querz.nbt.tag.CompoundTag;
 
 public class FilterData {
 
 	private final int lastUpdated;
-	private final CompoundTag chunk;
+	private final int sectors;
+	private final CompressionType compressionType;
+	// the chunk data is only decoded when a filter first reads it
+	private final MCAChunkData chunkData;
+	private CompoundTag chunk;
 
-	public FilterData(int lastUpdated, CompoundTag chunk) {
-		this.lastUpdated = lastUpdated;
-		this.chunk = chunk;
+	// if the chunk data was not loaded, the filters read the values from the index instead
+	private final RegionIndex index;
+	private final int indexPosition;
+
+	// the numeric values of this chunk, extracted lazily by number filters.
+	// bit n of extractedFields is set if the value of ChunkField n has been extracted.
+	private final long[] fields = new long[ChunkField.COUNT];
+	private int extractedFields;
+
+	// created lazily by the first biome filter, null if the chunk has no biomes
+	private BiomeSet biomes;
+	private boolean biomesDecoded;
+
+	// read lazily by the first entity filter and shared with all other entity filters evaluated on this chunk
+	private EntitySummary entitySummary;
+
+	// decoded lazily by the first block amount filter and shared with all other filters evaluated on this chunk
+	private BlockHistogram blockHistogram;
+	private boolean blockHistogramDecoded;
+
+	// the chunk data and the compression type are null if only the region header has been read
+	public FilterData(MCAChunkData data) {
+		this.lastUpdated = data.getTimestamp();
+		this.sectors = data.getSectors() & 0xFF;
+		this.compressionType = data.getCompressionType();
+		this.chunkData = data;
+		this.index = null;
+		this.indexPosition = -1;
+	}
+
+	public FilterData(RegionIndex index, int indexPosition) {
+		this.lastUpdated = index.getTimestamp(indexPosition);
+		this.sectors = index.getSectors(indexPosition);
+		this.compressionType = index.getCompressionType(indexPosition);
+		this.chunkData = null;
+		this.index = index;
+		this.indexPosition = indexPosition;
 	}
 
 	public int getLastUpdated() {
 		return lastUpdated;
 	}
 
+	public int getSectors() {
+		return sectors;
+	}
+
+	public CompressionType getCompressionType() {
+		return compressionType;
+	}
+
 	public CompoundTag getChunk() {
+		if (chunk == null && chunkData != null) {
+			chunk = chunkData.getData();
+		}
 		return chunk;
 	}
+
+	public long getField(ChunkField field) {
+		int bit = 1 << field.ordinal();
+		if ((extractedFields & bit) == 0) {
+			fields[field.ordinal()] = field.extract(this);
+			extractedFields |= bit;
+		}
+		return fields[field.ordinal()];
+	}
+
+	// returns null if the chunk does not have biomes
+	public BiomeSet getBiomes() {
+		if (!biomesDecoded) {
+			if (isIndexed()) {
+				biomes = index.getBiomes(indexPosition);
+			} else {
+				CompoundTag chunk = getChunk();
+				int[] biomeIDs = VersionController.getChunkFilter(chunk.getInt("DataVersion")).getBiomeIDs(chunk);
+				biomes = biomeIDs == null ? null : BiomeSet.of(biomeIDs);
+			}
+			biomesDecoded = true;
+		}
+		return biomes;
+	}
+
+	public EntitySummary getEntitySummary() {
+		if (entitySummary == null) {
+			entitySummary = isIndexed() ? index.getEntitySummary(indexPosition) : EntitySummary.create(getChunk());
+		}
+		return entitySummary;
+	}
+
+	// returns null if the chunk does not have palettes
+	public BlockHistogram getBlockHistogram() {
+		if (!blockHistogramDecoded) {
+			CompoundTag chunk = getChunk();
+			blockHistogram = VersionController.getChunkFilter(chunk.getInt("DataVersion")).getBlockHistogram(chunk);
+			blockHistogramDecoded = true;
+		}
+		return blockHistogram;
+	}
+
+	public boolean isIndexed() {
+		return index != null;
+	}
+
+	public RegionIndex getIndex() {
+		return index;
+	}
+
+	public int getIndexPosition() {
+		return indexPosition;
+	}
 }
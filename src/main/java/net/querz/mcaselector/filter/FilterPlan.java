@@ -0,0 +1,444 @@
+package net.querz.mcaselector.filter;
+
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
+import net.querz.mcaselector.point.Point2i;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+// an evaluation plan for a GroupFilter.
+// a group is evaluated as a disjunction of AND-blocks, where each OR starts a new block.
+// the plan orders the filters in each block and the blocks themselves by the cost of the chunk parts they read,
+// so that cheap filters can short-circuit the evaluation before expensive ones are evaluated.
+// filters that only depend on the location of a region (RegionMatcher) are resolved once per region with forRegion().
+// number filters are compiled into predicates on the primitive values of a chunk, which are extracted once per chunk.
+public final class FilterPlan {
+
+	private final Node root;
+	private final Set<ChunkPart> requiredParts;
+
+	private FilterPlan(Node root) {
+		this.root = root;
+		EnumSet<ChunkPart> parts = EnumSet.noneOf(ChunkPart.class);
+		root.collectParts(parts);
+		requiredParts = Collections.unmodifiableSet(parts);
+	}
+
+	public static FilterPlan compile(GroupFilter filter) {
+		return new FilterPlan(compileGroup(filter));
+	}
+
+	// returns a plan with all region level filters resolved for this region
+	public FilterPlan forRegion(Point2i region) {
+		Node node = root.forRegion(region);
+		return node == root ? this : new FilterPlan(node);
+	}
+
+	public boolean matches(FilterData data) {
+		return root.matches(data);
+	}
+
+	// whether this plan can't match any chunk, so the region file does not need to be read
+	public boolean isNeverMatching() {
+		return root == Constant.FALSE;
+	}
+
+	// all parts of a chunk that are read when evaluating this plan
+	public Set<ChunkPart> getRequiredParts() {
+		return requiredParts;
+	}
+
+	// whether this plan can be evaluated by only reading these parts of a chunk
+	public boolean requiresOnly(ChunkPart... parts) {
+		return Arrays.asList(parts).containsAll(requiredParts);
+	}
+
+	public boolean isIndexed(RegionIndex index) {
+		return root.isIndexed(index);
+	}
+
+	// returns false if no chunk in the region described by this summary can match this plan.
+	// a plan may always match if there is no summary.
+	public boolean mayMatch(RegionSummary summary) {
+		if (summary == null) {
+			return true;
+		}
+		return !summary.isEmpty() && root.mayMatch(summary);
+	}
+
+	// combines the result of this plan from cached results of this plan or its groups and filters.
+	// a result is a bitmap of the chunks of a region, indexed by z * 32 + x.
+	// returns null if one of the required results is not cached.
+	public long[] getCachedResult(Function<String, long[]> cache, long[] existingChunks) {
+		return root.getCachedResult(cache, existingChunks);
+	}
+
+	// the keys the result of this plan is cached with
+	public List<String> getCacheKeys() {
+		List<String> keys = new ArrayList<>(2);
+		keys.add(root.toString());
+		// a group with a single filter has the same result as the filter
+		if (root instanceof Group) {
+			Group group = (Group) root;
+			if (!group.inverted && group.blocks.size() == 1 && group.blocks.get(0).size() == 1) {
+				keys.add(group.blocks.get(0).get(0).toString());
+			}
+		}
+		return keys;
+	}
+
+	@Override
+	public String toString() {
+		return root.toString();
+	}
+
+	private static Node compileGroup(GroupFilter filter) {
+		List<Filter<?>> children = filter.getFilterValue();
+		List<List<Node>> blocks = new ArrayList<>();
+		List<Node> block = new ArrayList<>();
+		for (int i = 0; i < children.size(); i++) {
+			Filter<?> child = children.get(i);
+			if (i != 0 && child.getOperator() == Operator.OR) {
+				blocks.add(block);
+				block = new ArrayList<>();
+			}
+			block.add(compileFilter(child));
+		}
+		blocks.add(block);
+		return Group.create(blocks, filter.isInverted());
+	}
+
+	private static Node compileFilter(Filter<?> filter) {
+		if (filter.getType() == FilterType.GROUP) {
+			return compileGroup((GroupFilter) filter);
+		} else if (filter instanceof NumberFilter) {
+			return new NumberLeaf((NumberFilter<?>) filter);
+		}
+		return new Leaf(filter);
+	}
+
+	private static abstract class Node {
+
+		abstract boolean matches(FilterData data);
+
+		abstract int getCost();
+
+		abstract Node forRegion(Point2i region);
+
+		abstract void collectParts(Set<ChunkPart> parts);
+
+		abstract boolean isIndexed(RegionIndex index);
+
+		abstract boolean mayMatch(RegionSummary summary);
+
+		long[] getCachedResult(Function<String, long[]> cache, long[] existingChunks) {
+			return cache.apply(toString());
+		}
+	}
+
+	private static final class Constant extends Node {
+
+		static final Constant TRUE = new Constant(true);
+		static final Constant FALSE = new Constant(false);
+
+		private final boolean value;
+
+		private Constant(boolean value) {
+			this.value = value;
+		}
+
+		static Constant of(boolean value) {
+			return value ? TRUE : FALSE;
+		}
+
+		@Override
+		boolean matches(FilterData data) {
+			return value;
+		}
+
+		@Override
+		int getCost() {
+			return 0;
+		}
+
+		@Override
+		Node forRegion(Point2i region) {
+			return this;
+		}
+
+		@Override
+		void collectParts(Set<ChunkPart> parts) {}
+
+		@Override
+		boolean isIndexed(RegionIndex index) {
+			return true;
+		}
+
+		@Override
+		boolean mayMatch(RegionSummary summary) {
+			return value;
+		}
+
+		@Override
+		long[] getCachedResult(Function<String, long[]> cache, long[] existingChunks) {
+			return value ? existingChunks.clone() : new long[existingChunks.length];
+		}
+
+		@Override
+		public String toString() {
+			return Boolean.toString(value);
+		}
+	}
+
+	private static class Leaf extends Node {
+
+		private final Filter<?> filter;
+
+		Leaf(Filter<?> filter) {
+			this.filter = filter;
+		}
+
+		@Override
+		boolean matches(FilterData data) {
+			return filter.matches(data);
+		}
+
+		@Override
+		int getCost() {
+			return filter.getType().getPart().getCost();
+		}
+
+		@Override
+		Node forRegion(Point2i region) {
+			if (filter instanceof RegionMatcher) {
+				RegionMatcher regionMatcher = (RegionMatcher) filter;
+				if (!regionMatcher.matchesRegion(region)) {
+					return Constant.FALSE;
+				}
+				if (regionMatcher.matchesWholeRegion(region)) {
+					return Constant.TRUE;
+				}
+			}
+			return this;
+		}
+
+		@Override
+		void collectParts(Set<ChunkPart> parts) {
+			parts.add(filter.getType().getPart());
+		}
+
+		@Override
+		boolean isIndexed(RegionIndex index) {
+			return filter.isIndexed(index);
+		}
+
+		@Override
+		boolean mayMatch(RegionSummary summary) {
+			return filter.mayMatch(summary);
+		}
+
+		@Override
+		public String toString() {
+			return filter.toString();
+		}
+	}
+
+	// evaluates a number filter on the primitive value of the chunk without boxing
+	private static final class NumberLeaf extends Leaf {
+
+		private final ChunkField field;
+		private final LongPredicate predicate;
+
+		private NumberLeaf(NumberFilter<?> filter) {
+			super(filter);
+			field = filter.getField();
+			predicate = filter.compile();
+		}
+
+		@Override
+		boolean matches(FilterData data) {
+			return predicate.test(data.getField(field));
+		}
+	}
+
+	private static final class Group extends Node {
+
+		private final List<List<Node>> blocks;
+		private final boolean inverted;
+		private final int cost;
+
+		private Group(List<List<Node>> blocks, boolean inverted) {
+			this.blocks = blocks;
+			this.inverted = inverted;
+			int cost = 0;
+			for (List<Node> block : blocks) {
+				cost += getCost(block);
+			}
+			this.cost = cost;
+		}
+
+		// removes constants and sorts the blocks by cost.
+		// returns a constant if the result does not depend on the chunk.
+		static Node create(List<List<Node>> blocks, boolean inverted) {
+			List<List<Node>> simplified = new ArrayList<>(blocks.size());
+			blockLoop:
+			for (List<Node> block : blocks) {
+				List<Node> simplifiedBlock = new ArrayList<>(block.size());
+				for (Node node : block) {
+					if (node == Constant.FALSE) {
+						continue blockLoop;
+					} else if (node != Constant.TRUE) {
+						simplifiedBlock.add(node);
+					}
+				}
+				// an empty block always matches, so the whole disjunction does
+				if (simplifiedBlock.isEmpty()) {
+					return Constant.of(!inverted);
+				}
+				simplifiedBlock.sort((a, b) -> Integer.compare(a.getCost(), b.getCost()));
+				simplified.add(simplifiedBlock);
+			}
+			if (simplified.isEmpty()) {
+				return Constant.of(inverted);
+			}
+			simplified.sort((a, b) -> Integer.compare(getCost(a), getCost(b)));
+			return new Group(simplified, inverted);
+		}
+
+		private static int getCost(List<Node> block) {
+			int cost = 0;
+			for (Node node : block) {
+				cost += node.getCost();
+			}
+			return cost;
+		}
+
+		@Override
+		boolean matches(FilterData data) {
+			blockLoop:
+			for (List<Node> block : blocks) {
+				for (Node node : block) {
+					if (!node.matches(data)) {
+						continue blockLoop;
+					}
+				}
+				return !inverted;
+			}
+			return inverted;
+		}
+
+		@Override
+		int getCost() {
+			return cost;
+		}
+
+		@Override
+		Node forRegion(Point2i region) {
+			List<List<Node>> regionBlocks = new ArrayList<>(blocks.size());
+			boolean changed = false;
+			for (List<Node> block : blocks) {
+				List<Node> regionBlock = new ArrayList<>(block.size());
+				for (Node node : block) {
+					Node regionNode = node.forRegion(region);
+					changed |= regionNode != node;
+					regionBlock.add(regionNode);
+				}
+				regionBlocks.add(regionBlock);
+			}
+			return changed ? create(regionBlocks, inverted) : this;
+		}
+
+		@Override
+		void collectParts(Set<ChunkPart> parts) {
+			for (List<Node> block : blocks) {
+				for (Node node : block) {
+					node.collectParts(parts);
+				}
+			}
+		}
+
+		@Override
+		boolean isIndexed(RegionIndex index) {
+			for (List<Node> block : blocks) {
+				for (Node node : block) {
+					if (!node.isIndexed(index)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		@Override
+		long[] getCachedResult(Function<String, long[]> cache, long[] existingChunks) {
+			long[] result = super.getCachedResult(cache, existingChunks);
+			if (result != null) {
+				return result;
+			}
+			result = new long[existingChunks.length];
+			for (List<Node> block : blocks) {
+				long[] blockResult = existingChunks.clone();
+				for (Node node : block) {
+					long[] nodeResult = node.getCachedResult(cache, existingChunks);
+					if (nodeResult == null) {
+						return null;
+					}
+					for (int i = 0; i < blockResult.length; i++) {
+						blockResult[i] &= nodeResult[i];
+					}
+				}
+				for (int i = 0; i < result.length; i++) {
+					result[i] |= blockResult[i];
+				}
+			}
+			if (inverted) {
+				for (int i = 0; i < result.length; i++) {
+					result[i] = existingChunks[i] & ~result[i];
+				}
+			}
+			return result;
+		}
+
+		// an inverted group matches whenever one of its blocks doesn't, which a summary can't rule out
+		@Override
+		boolean mayMatch(RegionSummary summary) {
+			if (inverted) {
+				return true;
+			}
+			blockLoop:
+			for (List<Node> block : blocks) {
+				for (Node node : block) {
+					if (!node.mayMatch(summary)) {
+						continue blockLoop;
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(inverted ? "!(" : "(");
+			for (int i = 0; i < blocks.size(); i++) {
+				if (i != 0) {
+					s.append(" OR ");
+				}
+				List<Node> block = blocks.get(i);
+				for (int j = 0; j < block.size(); j++) {
+					if (j != 0) {
+						s.append(" AND ");
+					}
+					s.append(block.get(j));
+				}
+			}
+			return s.append(")").toString();
+		}
+	}
+}
@@ -4,34 +4,44 @@ import net.querz.mcaselector.debug.Debug;
 
 public enum FilterType {
 
-	GROUP("Group", GroupFilter.class, Format.GROUP),
-	DATA_VERSION("DataVersion", DataVersionFilter.class, Format.NUMBER),
-	INHABITED_TIME("InhabitedTime", InhabitedTimeFilter.class, Format.NUMBER),
-	X_POS("xPos", XPosFilter.class, Format.NUMBER),
-	Z_POS("zPos", ZPosFilter.class, Format.NUMBER),
-	LAST_UPDATE("LastUpdate", LastUpdateFilter.class, Format.NUMBER),
-	PALETTE("Palette", PaletteFilter.class, Format.TEXT),
-	BIOME("Biome", BiomeFilter.class, Format.TEXT),
-	STATUS("Status", StatusFilter.class, Format.TEXT),
-	LIGHT_POPULATED("LightPopulated", LightPopulatedFilter.class, Format.NUMBER),
-	ENTITIES("Entities", EntityFilter.class, Format.TEXT),
-	ENTITY_AMOUNT("#Entities", EntityAmountFilter.class, Format.NUMBER),
-	TILE_ENTITY_AMOUNT("#TileEntities", TileEntityAmountFilter.class, Format.NUMBER);
+	GROUP("Group", GroupFilter.class, Format.GROUP, null),
+	DATA_VERSION("DataVersion", DataVersionFilter.class, Format.NUMBER, ChunkPart.LEVEL),
+	INHABITED_TIME("InhabitedTime", InhabitedTimeFilter.class, Format.NUMBER, ChunkPart.LEVEL),
+	X_POS("xPos", XPosFilter.class, Format.NUMBER, ChunkPart.LEVEL),
+	Z_POS("zPos", ZPosFilter.class, Format.NUMBER, ChunkPart.LEVEL),
+	LAST_UPDATE("LastUpdate", LastUpdateFilter.class, Format.NUMBER, ChunkPart.HEADER),
+	PALETTE("Palette", PaletteFilter.class, Format.TEXT, ChunkPart.SECTIONS),
+	BLOCK_AMOUNT("#Blocks", BlockAmountFilter.class, Format.TEXT, ChunkPart.SECTIONS),
+	BIOME("Biome", BiomeFilter.class, Format.TEXT, ChunkPart.BIOMES),
+	STATUS("Status", StatusFilter.class, Format.TEXT, ChunkPart.LEVEL),
+	LIGHT_POPULATED("LightPopulated", LightPopulatedFilter.class, Format.NUMBER, ChunkPart.LEVEL),
+	ENTITIES("Entities", EntityFilter.class, Format.TEXT, ChunkPart.ENTITIES),
+	ENTITY_AMOUNT("#Entities", EntityAmountFilter.class, Format.NUMBER, ChunkPart.ENTITIES),
+	TILE_ENTITY_AMOUNT("#TileEntities", TileEntityAmountFilter.class, Format.NUMBER, ChunkPart.TILE_ENTITIES),
+	SECTORS("Sectors", SectorsFilter.class, Format.NUMBER, ChunkPart.HEADER),
+	COMPRESSION("Compression", CompressionFilter.class, Format.TEXT, ChunkPart.CHUNK_HEADER);
 
 	private final String string;
 	private final Class<? extends Filter<?>> clazz;
 	private final Format format;
+	private final ChunkPart part;
 
-	FilterType(String string, Class<? extends Filter<?>> clazz, Format format) {
+	FilterType(String string, Class<? extends Filter<?>> clazz, Format format, ChunkPart part) {
 		this.string = string;
 		this.clazz = clazz;
 		this.format = format;
+		this.part = part;
 	}
 
 	public Format getFormat() {
 		return format;
 	}
 
+	// the part of a chunk a filter of this type reads, null for groups
+	public ChunkPart getPart() {
+		return part;
+	}
+
 	public Filter<?> create() {
 		try {
 			return clazz.newInstance();
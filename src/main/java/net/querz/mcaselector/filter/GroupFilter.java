@@ -1,6 +1,5 @@
 package net.querz.mcaselector.filter;
 
-import net.querz.mcaselector.point.Point2i;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +30,10 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 		this.inverted = inverted;
 	}
 
+	public boolean isInverted() {
+		return inverted;
+	}
+
 	//returns index of where this filter was added
 	public int addFilterAfter(Filter<?> filter, Filter<?> after) {
 		filter.setParent(this);
@@ -89,34 +92,6 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 		return inverted != currentResult;
 	}
 
-	public boolean appliesToRegion(Point2i region) {
-		// if we have anything else than xPos and zPos filters, we apply to this region
-		boolean currentResult = true;
-		for (int i = 0; i < children.size(); i++) {
-			Filter<?> child = children.get(i);
-			if (child instanceof GroupFilter && ((GroupFilter) child).appliesToRegion(region)) {
-				return true;
-			} else if (child instanceof RegionMatcher) {
-				RegionMatcher regionMatcher = (RegionMatcher) child;
-
-				if ((child.getOperator() == Operator.AND || i == 0) && currentResult) {
-					currentResult = regionMatcher.matchesRegion(region);
-				} else if (child.getOperator() == Operator.OR) {
-					//don't check other conditions if everything before OR is already true
-					if (currentResult) {
-						return true;
-					}
-					//otherwise, reset currentResult
-					currentResult = regionMatcher.matchesRegion(region);
-				}
-			} else {
-				return true;
-			}
-		}
-
-		return currentResult;
-	}
-
 	@Override
 	public String toString() {
 		return toString(0);
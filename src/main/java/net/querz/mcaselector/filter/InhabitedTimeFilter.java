@@ -1,5 +1,6 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
 import net.querz.mcaselector.text.TextHelper;
 
 public class InhabitedTimeFilter extends LongFilter {
@@ -13,8 +14,13 @@ public class InhabitedTimeFilter extends LongFilter {
 	}
 
 	@Override
-	protected Long getNumber(FilterData data) {
-		return data.getChunk().getCompoundTag("Level").getLong("InhabitedTime");
+	ChunkField getField() {
+		return ChunkField.INHABITED_TIME;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -15,6 +15,11 @@ public abstract class IntFilter extends NumberFilter<Integer> {
 		return value;
 	}
 
+	@Override
+	Integer getNumber(FilterData data) {
+		return (int) data.getField(getField());
+	}
+
 	@Override
 	protected void setFilterNumber(Integer value) {
 		this.value = value;
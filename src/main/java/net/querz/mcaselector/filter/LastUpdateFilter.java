@@ -1,5 +1,6 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
 import net.querz.mcaselector.text.TextHelper;
 
 public class LastUpdateFilter extends IntFilter {
@@ -13,8 +14,13 @@ public class LastUpdateFilter extends IntFilter {
 	}
 
 	@Override
-	Integer getNumber(FilterData data) {
-		return data.getLastUpdated();
+	ChunkField getField() {
+		return ChunkField.LAST_UPDATE;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -1,5 +1,7 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
+
 public class LightPopulatedFilter extends ByteFilter {
 
 	private static final Comparator[] comparators = {
@@ -21,8 +23,13 @@ public class LightPopulatedFilter extends ByteFilter {
 	}
 
 	@Override
-	Byte getNumber(FilterData data) {
-		return data.getChunk().getCompoundTag("Level").getByte("LightPopulated");
+	ChunkField getField() {
+		return ChunkField.LIGHT_POPULATED;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
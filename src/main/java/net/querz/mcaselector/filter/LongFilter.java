@@ -15,6 +15,11 @@ public abstract class LongFilter extends NumberFilter<Long> {
 		return value;
 	}
 
+	@Override
+	Long getNumber(FilterData data) {
+		return data.getField(getField());
+	}
+
 	@Override
 	protected void setFilterNumber(Long value) {
 		this.value = value;
@@ -1,5 +1,8 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionSummary;
+import java.util.function.LongPredicate;
+
 public abstract class NumberFilter<T extends Number> extends Filter<T> {
 
 	private static final Comparator[] comparators = new Comparator[] {
@@ -60,6 +63,48 @@ public abstract class NumberFilter<T extends Number> extends Filter<T> {
 		return matches(getFilterNumber(), getNumber(data));
 	}
 
+	// compiles the comparator and the value of this filter into a predicate on the primitive value of getField()
+	public LongPredicate compile() {
+		long value = getFilterNumber().longValue();
+		switch (comparator) {
+			case EQUAL:
+				return v -> v == value;
+			case NOT_EQUAL:
+				return v -> v != value;
+			case LARGER:
+				return v -> v > value;
+			case SMALLER:
+				return v -> v < value;
+			case LARGER_EQUAL:
+				return v -> v >= value;
+			case SMALLER_EQUAL:
+				return v -> v <= value;
+		}
+		return v -> false;
+	}
+
+	@Override
+	public boolean mayMatch(RegionSummary summary) {
+		long value = getFilterNumber().longValue();
+		long min = summary.getMin(getField());
+		long max = summary.getMax(getField());
+		switch (comparator) {
+			case EQUAL:
+				return min <= value && value <= max;
+			case NOT_EQUAL:
+				return min != value || max != value;
+			case LARGER:
+				return max > value;
+			case SMALLER:
+				return min < value;
+			case LARGER_EQUAL:
+				return max >= value;
+			case SMALLER_EQUAL:
+				return min <= value;
+		}
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return getType() + " " + comparator.getQueryString() + " " + getFilterValue();
@@ -73,6 +118,9 @@ public abstract class NumberFilter<T extends Number> extends Filter<T> {
 
 	abstract T getNumber(FilterData data);
 
+	// the value of the chunk this filter compares its value with
+	abstract ChunkField getField();
+
 	abstract boolean isEqual(T a, T b);
 
 	abstract boolean isNotEqual(T a, T b);
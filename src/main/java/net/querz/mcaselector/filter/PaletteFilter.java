@@ -1,6 +1,10 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.Config;
 import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
+import net.querz.mcaselector.version.BlockNameSet;
 import net.querz.mcaselector.version.VersionController;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -16,6 +20,9 @@ public class PaletteFilter extends TextFilter<List<String>> {
 
 	private static final Set<String> validNames = new HashSet<>();
 
+	// the value precompiled for matching, recreated whenever the value changes
+	private transient BlockNameSet blockNames;
+
 	static {
 		try (BufferedReader bis = new BufferedReader(
 				new InputStreamReader(Objects.requireNonNull(PaletteFilter.class.getClassLoader().getResourceAsStream("block-names.csv"))))) {
@@ -39,7 +46,41 @@ public class PaletteFilter extends TextFilter<List<String>> {
 
 	@Override
 	public boolean contains(List<String> value, FilterData data) {
-		return VersionController.getChunkFilter(data.getChunk().getInt("DataVersion")).matchBlockNames(data.getChunk(), value.toArray(new String[0]));
+		BlockNameSet names = getBlockNames(value);
+		if (data.isIndexed()) {
+			return data.getIndex().containsBlockNames(data.getIndexPosition(), names);
+		}
+		return VersionController.getChunkFilter(data.getChunk().getInt("DataVersion")).matchBlockNames(data.getChunk(), names, Config.checkBlockStates());
+	}
+
+	private BlockNameSet getBlockNames(List<String> value) {
+		if (value != this.value) {
+			return new BlockNameSet(value);
+		}
+		if (blockNames == null) {
+			blockNames = new BlockNameSet(value);
+		}
+		return blockNames;
+	}
+
+	// the index only knows the palettes, it can't tell whether a palette entry is used in the block states
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return index.hasPalettes() && !Config.checkBlockStates();
+	}
+
+	@Override
+	public boolean mayMatch(RegionSummary summary) {
+		if (getComparator() != Comparator.CONTAINS) {
+			return true;
+		}
+		BlockNameSet names = getBlockNames(value);
+		for (int n = 0; n < names.size(); n++) {
+			if (!summary.mightContainBlockName(names.getNamespacedName(n))) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -49,29 +90,43 @@ public class PaletteFilter extends TextFilter<List<String>> {
 
 	@Override
 	public void setFilterValue(String raw) {
-		String[] rawBlockNames = raw.replace(" ", "").split(",");
-		if (raw.isEmpty() || rawBlockNames.length == 0) {
+		List<String> names = parseBlockNames(raw);
+		if (names == null) {
 			setValid(false);
 			setValue(null);
 		} else {
-			for (int i = 0; i < rawBlockNames.length; i++) {
-				String name = rawBlockNames[i];
-				if (!validNames.contains(name)) {
-					if (name.startsWith("'") && name.endsWith("'") && name.length() >= 2 && !name.contains("\"")) {
-						rawBlockNames[i] = name.substring(1, name.length() - 1);
-						continue;
-					}
-					setValue(null);
-					setValid(false);
-					return;
-				}
-			}
 			setValid(true);
-			setValue(Arrays.asList(rawBlockNames));
+			setValue(names);
 			setRawValue(raw);
 		}
 	}
 
+	// parses a comma separated list of block names, returns null if one of the names is invalid.
+	// block names in single quotes are not validated.
+	static List<String> parseBlockNames(String raw) {
+		String[] rawBlockNames = raw.replace(" ", "").split(",");
+		if (raw.isEmpty() || rawBlockNames.length == 0) {
+			return null;
+		}
+		for (int i = 0; i < rawBlockNames.length; i++) {
+			String name = rawBlockNames[i];
+			if (!validNames.contains(name)) {
+				if (name.startsWith("'") && name.endsWith("'") && name.length() >= 2 && !name.contains("\"")) {
+					rawBlockNames[i] = name.substring(1, name.length() - 1);
+					continue;
+				}
+				return null;
+			}
+		}
+		return Arrays.asList(rawBlockNames);
+	}
+
+	@Override
+	public void setValue(List<String> value) {
+		super.setValue(value);
+		blockNames = null;
+	}
+
 	@Override
 	public String getFormatText() {
 		return "<block>[,<block>,...]";
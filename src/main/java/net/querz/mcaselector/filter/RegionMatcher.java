@@ -4,5 +4,9 @@ import net.querz.mcaselector.point.Point2i;
 
 public interface RegionMatcher {
 
+	// whether at least one chunk in this region matches
 	boolean matchesRegion(Point2i region);
+
+	// whether all chunks in this region match
+	boolean matchesWholeRegion(Point2i region);
 }
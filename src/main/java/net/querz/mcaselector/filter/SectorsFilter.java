@@ -0,0 +1,44 @@
+package net.querz.mcaselector.filter;
+
+import net.querz.mcaselector.index.RegionIndex;
+
+// the number of 4KiB sectors a chunk occupies in the region file, read from the region header
+public class SectorsFilter extends IntFilter {
+
+	public SectorsFilter() {
+		this(Operator.AND, Comparator.EQUAL, 0);
+	}
+
+	private SectorsFilter(Operator operator, Comparator comparator, int value) {
+		super(FilterType.SECTORS, operator, comparator, value);
+	}
+
+	@Override
+	ChunkField getField() {
+		return ChunkField.SECTORS;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
+	}
+
+	@Override
+	public void setFilterValue(String raw) {
+		super.setFilterValue(raw);
+		if (isValid() && (getFilterValue() < 0 || getFilterValue() > 255)) {
+			setFilterNumber(0);
+			setValid(false);
+		}
+	}
+
+	@Override
+	public String getFormatText() {
+		return "0-255";
+	}
+
+	@Override
+	public SectorsFilter clone() {
+		return new SectorsFilter(getOperator(), getComparator(), value);
+	}
+}
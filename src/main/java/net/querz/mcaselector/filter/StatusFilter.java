@@ -1,5 +1,6 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
 import net.querz.nbt.tag.StringTag;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -65,14 +66,27 @@ public class StatusFilter extends TextFilter<String> {
 
 	@Override
 	public boolean contains(String value, FilterData data) {
-		StringTag tag = data.getChunk().getCompoundTag("Level").getStringTag("Status");
-		return tag != null && validStatus.contains(tag.getValue());
+		String status = getStatus(data);
+		return status != null && validStatus.contains(status);
 	}
 
 	@Override
 	public boolean containsNot(String value, FilterData data) {
+		String status = getStatus(data);
+		return status == null || !validStatus.contains(status);
+	}
+
+	private String getStatus(FilterData data) {
+		if (data.isIndexed()) {
+			return data.getIndex().getStatus(data.getIndexPosition());
+		}
 		StringTag tag = data.getChunk().getCompoundTag("Level").getStringTag("Status");
-		return tag == null || !validStatus.contains(tag.getValue());
+		return tag == null ? null : tag.getValue();
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -1,8 +1,6 @@
 package net.querz.mcaselector.filter;
 
-import net.querz.nbt.tag.ListTag;
-import net.querz.nbt.tag.LongArrayTag;
-import net.querz.nbt.tag.Tag;
+import net.querz.mcaselector.index.RegionIndex;
 
 public class TileEntityAmountFilter extends IntFilter {
 
@@ -15,12 +13,13 @@ public class TileEntityAmountFilter extends IntFilter {
 	}
 
 	@Override
-	protected Integer getNumber(FilterData data) {
-		Tag<?> rawTileEntities = data.getChunk().getCompoundTag("Level").get("TileEntities");
-		if (rawTileEntities == null || rawTileEntities.getID() == LongArrayTag.ID) {
-			return 0;
-		}
-		return ((ListTag<?>) rawTileEntities).asCompoundTagList().size();
+	ChunkField getField() {
+		return ChunkField.TILE_ENTITY_AMOUNT;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package net.querz.mcaselector.filter;
 
+import net.querz.mcaselector.index.RegionIndex;
 import net.querz.mcaselector.point.Point2i;
 
 public class ZPosFilter extends IntFilter implements RegionMatcher {
@@ -13,8 +14,13 @@ public class ZPosFilter extends IntFilter implements RegionMatcher {
 	}
 
 	@Override
-	protected Integer getNumber(FilterData data) {
-		return data.getChunk().getCompoundTag("Level").getInt("zPos");
+	ChunkField getField() {
+		return ChunkField.Z_POS;
+	}
+
+	@Override
+	public boolean isIndexed(RegionIndex index) {
+		return true;
 	}
 
 	@Override
@@ -29,6 +35,18 @@ public class ZPosFilter extends IntFilter implements RegionMatcher {
 		return false;
 	}
 
+	@Override
+	public boolean matchesWholeRegion(Point2i region) {
+		Point2i chunk = region.regionToChunk();
+		for (int i = 0; i < 32; i++) {
+			Point2i p = chunk.add(i);
+			if (!matches(getFilterNumber(), p.getY())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public ZPosFilter clone() {
 		return new ZPosFilter(getOperator(), getComparator(), value);
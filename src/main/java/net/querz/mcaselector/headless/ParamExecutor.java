@@ -8,6 +8,7 @@ import net.querz.mcaselector.io.ChunkFilterDeleter;
 import net.querz.mcaselector.io.ChunkFilterExporter;
 import net.querz.mcaselector.io.ChunkFilterSelector;
 import net.querz.mcaselector.io.ChunkImporter;
+import net.querz.mcaselector.io.CompressionStrategy;
 import net.querz.mcaselector.io.FieldChanger;
 import net.querz.mcaselector.io.SelectionDeleter;
 import net.querz.mcaselector.io.SelectionExporter;
@@ -92,6 +93,10 @@ public class ParamExecutor {
 			pi.registerDependencies("read-threads", null, new ActionKey("headless", null));
 			pi.registerDependencies("process-threads", null, new ActionKey("headless", null));
 			pi.registerDependencies("write-threads", null, new ActionKey("headless", null));
+			pi.registerDependencies("check-block-states", null, new ActionKey("headless", null));
+			pi.registerDependencies("compression-level", null, new ActionKey("headless", null));
+			pi.registerDependencies("compression-strategy", null, new ActionKey("headless", null));
+			pi.registerRestrictions("compression-strategy", "default", "filtered", "huffman_only");
 
 			parseConfig(params.get());
 
@@ -137,6 +142,9 @@ public class ParamExecutor {
 		Config.setProcessThreads(parsePositiveInt(params.getOrDefault("process-threads", "" + Config.DEFAULT_PROCESS_THREADS)));
 		Config.setWriteThreads(parsePositiveInt(params.getOrDefault("write-threads", "" + Config.DEFAULT_WRITE_THREADS)));
 		Config.setMaxLoadedFiles(parsePositiveInt(params.getOrDefault("max-loaded-files", "" + Config.DEFAULT_MAX_LOADED_FILES)));
+		Config.setCheckBlockStates(params.containsKey("check-block-states"));
+		Config.setCompressionLevel(parseCompressionLevel(params.getOrDefault("compression-level", "" + Config.DEFAULT_COMPRESSION_LEVEL)));
+		Config.setCompressionStrategy(CompressionStrategy.fromString(params.getOrDefault("compression-strategy", "" + Config.DEFAULT_COMPRESSION_STRATEGY)));
 	}
 
 	private static void runModeCache(Map<String, String> params, FutureTask<Boolean> future) throws IOException {
@@ -242,18 +250,22 @@ public class ParamExecutor {
 
 		printHeadlessSettings();
 
-		ConsoleProgress progress = new ConsoleProgress();
-		progress.onDone(future);
-
 		DataProperty<Map<Point2i, File>> tempFiles = new DataProperty<>();
-		ChunkImporter.importChunks(input, progress, true, overwrite, null, selection, ranges, new Point2i(offsetX, offsetZ), tempFiles);
-		if (tempFiles.get() != null) {
-			for (File tempFile : tempFiles.get().values()) {
-				if (!tempFile.delete()) {
-					Debug.errorf("failed to delete temp file %s", tempFile);
+
+		// temp files are used until the import is done
+		ConsoleProgress progress = new ConsoleProgress();
+		progress.onDone(() -> {
+			if (tempFiles.get() != null) {
+				for (File tempFile : tempFiles.get().values()) {
+					if (!tempFile.delete()) {
+						Debug.errorf("failed to delete temp file %s", tempFile);
+					}
 				}
 			}
-		}
+			future.run();
+		});
+
+		ChunkImporter.importChunks(input, progress, true, overwrite, null, selection, ranges, new Point2i(offsetX, offsetZ), tempFiles);
 	}
 
 	private static void runModeExport(Map<String, String> params, FutureTask<Boolean> future) throws IOException {
@@ -439,6 +451,7 @@ public class ParamExecutor {
 		Debug.print("read threads:    " + Config.getLoadThreads());
 		Debug.print("process threads: " + Config.getProcessThreads());
 		Debug.print("write threads:   " + Config.getWriteThreads());
+		Debug.print("compression:     level " + Config.getCompressionLevel() + ", strategy " + Config.getCompressionStrategy().name().toLowerCase());
 	}
 
 	private static int parseInt(String value) throws ParseException {
@@ -452,6 +465,14 @@ public class ParamExecutor {
 		return 0;
 	}
 
+	private static int parseCompressionLevel(String value) throws ParseException {
+		int level = parseInt(value);
+		if (level < -1 || level > 9) {
+			throw new ParseException("compression level must be between -1 and 9: \"" + value + "\"");
+		}
+		return level;
+	}
+
 	private static int parsePositiveInt(String value) throws ParseException {
 		if (value != null) {
 			try {
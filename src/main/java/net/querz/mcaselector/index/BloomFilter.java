@@ -0,0 +1,64 @@
+package net.querz.mcaselector.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// a bloom filter for strings with about 10 bits per expected element and 4 hash functions (~1% false positives).
+// mightContain() never returns false for a string that has been added.
+public class BloomFilter {
+
+	private static final int HASHES = 4;
+
+	private final long[] words;
+
+	public BloomFilter(int expectedSize) {
+		words = new long[Math.max(1, (expectedSize * 10 + 63) >> 6)];
+	}
+
+	private BloomFilter(long[] words) {
+		this.words = words;
+	}
+
+	public void add(String value) {
+		int h1 = value.hashCode();
+		int h2 = secondHash(h1);
+		long bits = (long) words.length << 6;
+		for (int i = 0; i < HASHES; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bits);
+			words[(int) (bit >> 6)] |= 1L << bit;
+		}
+	}
+
+	public boolean mightContain(String value) {
+		int h1 = value.hashCode();
+		int h2 = secondHash(h1);
+		long bits = (long) words.length << 6;
+		for (int i = 0; i < HASHES; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bits);
+			if ((words[(int) (bit >> 6)] & 1L << bit) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int secondHash(int h) {
+		return Integer.rotateLeft(h * 0x9E3779B9, 16) | 1;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	static BloomFilter read(DataInputStream in) throws IOException {
+		long[] words = new long[in.readInt()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		return new BloomFilter(words);
+	}
+}
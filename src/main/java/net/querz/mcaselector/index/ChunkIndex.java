@@ -0,0 +1,110 @@
+package net.querz.mcaselector.index;
+
+import net.querz.mcaselector.Config;
+import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.io.FileHelper;
+import net.querz.mcaselector.point.Point2i;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// persists one RegionIndex and one RegionSummary per region file in the cache directory of the world.
+// an index is only valid as long as the last modification time and the size of its region file don't change.
+public final class ChunkIndex {
+
+	private ChunkIndex() {}
+
+	// returns null if there is no valid index for this region file
+	public static RegionIndex load(Point2i region, File mcaFile) {
+		if (Config.getCacheDir() == null) {
+			return null;
+		}
+		File file = FileHelper.createIndexFilePath(region);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+			RegionIndex index = RegionIndex.read(in);
+			if (index != null && index.isValidFor(mcaFile.lastModified(), mcaFile.length())) {
+				return index;
+			}
+		} catch (IOException | IllegalArgumentException ex) {
+			Debug.dumpException("failed to read chunk index " + file, ex);
+		}
+		return null;
+	}
+
+	// returns null if there is no valid summary for this region file
+	public static RegionSummary loadSummary(Point2i region, File mcaFile) {
+		if (Config.getCacheDir() == null) {
+			return null;
+		}
+		File file = FileHelper.createSummaryFilePath(region);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			RegionSummary summary = RegionSummary.read(in);
+			if (summary != null && summary.isValidFor(mcaFile.lastModified(), mcaFile.length())) {
+				return summary;
+			}
+		} catch (IOException ex) {
+			Debug.dumpException("failed to read region summary " + file, ex);
+		}
+		return null;
+	}
+
+	// saves the index and a summary of it
+	public static void save(Point2i region, RegionIndex index) {
+		if (Config.getCacheDir() == null) {
+			return;
+		}
+		File file = FileHelper.createIndexFilePath(region);
+		if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+			Debug.errorf("failed to create index directory for %s", file.getAbsolutePath());
+			return;
+		}
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))))) {
+			index.write(out);
+		} catch (IOException ex) {
+			Debug.dumpException("failed to write chunk index " + file, ex);
+			return;
+		}
+		saveSummary(region, RegionSummary.create(index));
+	}
+
+	public static void saveSummary(Point2i region, RegionSummary summary) {
+		if (Config.getCacheDir() == null) {
+			return;
+		}
+		File file = FileHelper.createSummaryFilePath(region);
+		if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+			Debug.errorf("failed to create index directory for %s", file.getAbsolutePath());
+			return;
+		}
+		// summaries are small and read for every region, so they are not compressed
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			summary.write(out);
+		} catch (IOException ex) {
+			Debug.dumpException("failed to write region summary " + file, ex);
+		}
+	}
+
+	public static void delete(Point2i region) {
+		if (Config.getCacheDir() == null) {
+			return;
+		}
+		for (File file : new File[]{FileHelper.createIndexFilePath(region), FileHelper.createSummaryFilePath(region)}) {
+			if (file.exists() && !file.delete()) {
+				Debug.error("could not delete file " + file);
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package net.querz.mcaselector.index;
+
+import net.querz.nbt.tag.CompoundTag;
+import net.querz.nbt.tag.ListTag;
+import net.querz.nbt.tag.LongArrayTag;
+import net.querz.nbt.tag.StringTag;
+import net.querz.nbt.tag.Tag;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// the entities and tile entities of a chunk, read once per chunk and shared by all entity filters.
+public class EntitySummary {
+
+	public static final EntitySummary EMPTY = new EntitySummary(Collections.emptyMap(), 0, 0);
+
+	private final Map<String, Integer> entityCounts;
+	private final int entityAmount;
+	private final int tileEntityAmount;
+
+	EntitySummary(Map<String, Integer> entityCounts, int entityAmount, int tileEntityAmount) {
+		this.entityCounts = entityCounts;
+		this.entityAmount = entityAmount;
+		this.tileEntityAmount = tileEntityAmount;
+	}
+
+	public static EntitySummary create(CompoundTag chunk) {
+		CompoundTag level = chunk.getCompoundTag("Level");
+		Tag<?> rawEntities = level.get("Entities");
+		Map<String, Integer> entityCounts = new HashMap<>();
+		int entityAmount = 0;
+		if (rawEntities != null && rawEntities.getID() != LongArrayTag.ID) {
+			ListTag<CompoundTag> entities = ((ListTag<?>) rawEntities).asCompoundTagList();
+			entityAmount = entities.size();
+			for (CompoundTag entity : entities) {
+				Tag<?> id = entity.get("id");
+				if (id instanceof StringTag) {
+					entityCounts.merge(((StringTag) id).getValue(), 1, Integer::sum);
+				}
+			}
+		}
+		int tileEntityAmount = 0;
+		Tag<?> rawTileEntities = level.get("TileEntities");
+		if (rawTileEntities != null && rawTileEntities.getID() != LongArrayTag.ID) {
+			tileEntityAmount = ((ListTag<?>) rawTileEntities).asCompoundTagList().size();
+		}
+		if (entityAmount == 0 && tileEntityAmount == 0) {
+			return EMPTY;
+		}
+		return new EntitySummary(entityCounts, entityAmount, tileEntityAmount);
+	}
+
+	public int getEntityAmount() {
+		return entityAmount;
+	}
+
+	public int getTileEntityAmount() {
+		return tileEntityAmount;
+	}
+
+	// returns the amount of entities with this id, including the namespace
+	public int getEntityCount(String id) {
+		return entityCounts.getOrDefault(id, 0);
+	}
+
+	// returns true if there is at least one entity for each of these ids
+	public boolean containsEntities(Collection<String> ids) {
+		for (String id : ids) {
+			if (!entityCounts.containsKey(id)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	Map<String, Integer> getEntityCounts() {
+		return entityCounts;
+	}
+}
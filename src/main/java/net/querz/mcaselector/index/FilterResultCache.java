@@ -0,0 +1,126 @@
+package net.querz.mcaselector.index;
+
+import net.querz.mcaselector.Config;
+import net.querz.mcaselector.filter.FilterPlan;
+import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.tiles.Tile;
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// keeps the results of the last filter queries in memory as one chunk bitmap per region file.
+// a result is only valid as long as the fingerprint of its region file does not change.
+// results of a new query are combined from the results of previous queries if all of its parts are cached.
+// every result also holds the chunks its query could be evaluated on, so that a combined result, e.g. of an inverted
+// group, only contains chunks that all of its parts were evaluated on, like a result that is not combined.
+public final class FilterResultCache {
+
+	private static final int MAX_QUERIES = 8;
+
+	// most regions don't match a query at all, so they share the same empty bitmap
+	private static final long[] EMPTY = new long[Tile.CHUNKS >> 6];
+
+	// query -> region file -> result, the least recently used query is removed first
+	private static final Map<String, Map<File, Result>> cache = new LinkedHashMap<String, Map<File, Result>>(MAX_QUERIES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Map<File, Result>> eldest) {
+			return size() > MAX_QUERIES;
+		}
+	};
+
+	private FilterResultCache() {}
+
+	// returns the selected chunks of this region file, or null if the result is not cached
+	public static Set<Point2i> get(FilterPlan plan, Point2i region, File file, RegionFingerprint fingerprint) {
+		long[] bitmap;
+		long[] evaluated = fingerprint.getExistingChunks();
+		synchronized (cache) {
+			bitmap = plan.getCachedResult(key -> getBitmap(key, file, fingerprint, evaluated), fingerprint.getExistingChunks());
+		}
+		if (bitmap == null) {
+			return null;
+		}
+		for (int i = 0; i < bitmap.length; i++) {
+			bitmap[i] &= evaluated[i];
+		}
+		return toChunks(bitmap, region);
+	}
+
+	// evaluated contains the indices of the chunks the query could be evaluated on
+	public static void put(FilterPlan plan, File file, RegionFingerprint fingerprint, Set<Point2i> chunks, BitSet evaluated) {
+		Result result = new Result(fingerprint, toBitmap(chunks), Arrays.copyOf(evaluated.toLongArray(), Tile.CHUNKS >> 6));
+		synchronized (cache) {
+			for (String key : plan.getCacheKeys()) {
+				cache.computeIfAbsent(createKey(key), k -> new HashMap<>()).put(file, result);
+			}
+		}
+	}
+
+	public static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	// removes all chunks from evaluated that the query of the result could not be evaluated on
+	private static long[] getBitmap(String key, File file, RegionFingerprint fingerprint, long[] evaluated) {
+		Map<File, Result> results = cache.get(createKey(key));
+		if (results == null) {
+			return null;
+		}
+		Result result = results.get(file);
+		if (result == null || !result.fingerprint.equals(fingerprint)) {
+			return null;
+		}
+		for (int i = 0; i < evaluated.length; i++) {
+			evaluated[i] &= result.evaluated[i];
+		}
+		return result.bitmap.clone();
+	}
+
+	// settings that change the result of a query are part of the key
+	private static String createKey(String query) {
+		return (Config.checkBlockStates() ? "blockstates:" : "palette:") + query;
+	}
+
+	private static long[] toBitmap(Set<Point2i> chunks) {
+		if (chunks.isEmpty()) {
+			return EMPTY;
+		}
+		long[] bitmap = new long[Tile.CHUNKS >> 6];
+		for (Point2i chunk : chunks) {
+			int i = (chunk.getY() & 0x1F) * Tile.SIZE_IN_CHUNKS + (chunk.getX() & 0x1F);
+			bitmap[i >> 6] |= 1L << i;
+		}
+		return bitmap;
+	}
+
+	private static Set<Point2i> toChunks(long[] bitmap, Point2i region) {
+		Set<Point2i> chunks = new HashSet<>();
+		Point2i regionChunk = region.regionToChunk();
+		for (int i = 0; i < Tile.CHUNKS; i++) {
+			if ((bitmap[i >> 6] & 1L << i) != 0) {
+				chunks.add(regionChunk.add(i % Tile.SIZE_IN_CHUNKS, i / Tile.SIZE_IN_CHUNKS));
+			}
+		}
+		return chunks;
+	}
+
+	private static class Result {
+
+		private final RegionFingerprint fingerprint;
+		private final long[] bitmap;
+		private final long[] evaluated;
+
+		private Result(RegionFingerprint fingerprint, long[] bitmap, long[] evaluated) {
+			this.fingerprint = fingerprint;
+			this.bitmap = bitmap;
+			this.evaluated = evaluated;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package net.querz.mcaselector.index;
+
+import net.querz.mcaselector.io.MCAFile;
+import net.querz.mcaselector.tiles.Tile;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+
+// identifies the state of a region file by its size, its last modification time and a checksum of its header.
+// also holds a bitmap of the chunks that exist in the region file.
+public final class RegionFingerprint {
+
+	private final long lastModified;
+	private final long size;
+	private final long headerChecksum;
+	private final long[] existingChunks;
+
+	private RegionFingerprint(long lastModified, long size, long headerChecksum, long[] existingChunks) {
+		this.lastModified = lastModified;
+		this.size = size;
+		this.headerChecksum = headerChecksum;
+		this.existingChunks = existingChunks;
+	}
+
+	// reads the header of the region file, returns null if the file does not have a complete header
+	public static RegionFingerprint read(File file) throws IOException {
+		long lastModified = file.lastModified();
+		long size = file.length();
+		if (size < MCAFile.SECTION_SIZE * 2) {
+			return null;
+		}
+		byte[] header = new byte[MCAFile.SECTION_SIZE * 2];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			raf.readFully(header);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(header);
+		long[] existingChunks = new long[Tile.CHUNKS >> 6];
+		for (int i = 0; i < Tile.CHUNKS; i++) {
+			int offset = (header[i * 4] & 0xFF) << 16 | (header[i * 4 + 1] & 0xFF) << 8 | header[i * 4 + 2] & 0xFF;
+			if (offset != 0) {
+				existingChunks[i >> 6] |= 1L << i;
+			}
+		}
+		return new RegionFingerprint(lastModified, size, crc.getValue(), existingChunks);
+	}
+
+	public long[] getExistingChunks() {
+		return existingChunks.clone();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof RegionFingerprint)) {
+			return false;
+		}
+		RegionFingerprint o = (RegionFingerprint) other;
+		return lastModified == o.lastModified && size == o.size && headerChecksum == o.headerChecksum;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(lastModified) * 31 * 31 + Long.hashCode(size) * 31 + Long.hashCode(headerChecksum);
+	}
+}
@@ -0,0 +1,404 @@
+package net.querz.mcaselector.index;
+
+import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.filter.FilterData;
+import net.querz.mcaselector.filter.FilterPlan;
+import net.querz.mcaselector.io.CompressionType;
+import net.querz.mcaselector.io.MCAChunkData;
+import net.querz.mcaselector.io.MCAFile;
+import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.tiles.Tile;
+import net.querz.mcaselector.version.BiomeSet;
+import net.querz.mcaselector.version.BlockNameSet;
+import net.querz.mcaselector.version.ChunkFilter;
+import net.querz.mcaselector.version.VersionController;
+import net.querz.nbt.tag.CompoundTag;
+import net.querz.nbt.tag.StringTag;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// the metadata of all chunks in a region file that can be used by filters, stored in columns.
+// each column has one entry per chunk, indexed by z * 32 + x.
+// block names and status values are stored in a dictionary per region and only referenced by their index.
+public class RegionIndex {
+
+	static final int VERSION = 4;
+
+	private long fileLastModified;
+	private long fileSize;
+
+	private final BitSet exists = new BitSet(Tile.CHUNKS);
+	private final int[] timestamps = new int[Tile.CHUNKS];
+	private final byte[] sectors = new byte[Tile.CHUNKS];
+	private final CompressionType[] compressionTypes = new CompressionType[Tile.CHUNKS];
+	private final int[] dataVersions = new int[Tile.CHUNKS];
+	private final int[] xPos = new int[Tile.CHUNKS];
+	private final int[] zPos = new int[Tile.CHUNKS];
+	private final long[] inhabitedTimes = new long[Tile.CHUNKS];
+	private final byte[] lightPopulated = new byte[Tile.CHUNKS];
+	private final EntitySummary[] entitySummaries = new EntitySummary[Tile.CHUNKS];
+
+	// index into statusNames, -1 if the chunk has no status
+	private final byte[] status = new byte[Tile.CHUNKS];
+	private final List<String> statusNames = new ArrayList<>();
+
+	// palettes are only indexed if all chunks in this region have block names in their palettes (1.13+)
+	private boolean hasPalettes = true;
+	private final BitSet[] palettes = new BitSet[Tile.CHUNKS];
+	private final List<String> blockNames = new ArrayList<>();
+	private final Map<String, Integer> blockNameIndices = new HashMap<>();
+	// the palette bits of the names of a BlockNameSet, resolved once per region and set of names.
+	// a region index is only evaluated by one thread at a time.
+	private final Map<BlockNameSet, int[]> resolvedBlockNames = new IdentityHashMap<>();
+
+	// null if the chunk has no biomes
+	private final BiomeSet[] biomes = new BiomeSet[Tile.CHUNKS];
+
+	RegionIndex() {}
+
+	// returns null if the metadata of one of the chunks could not be read,
+	// in which case the filters need to be evaluated on the chunk data itself.
+	public static RegionIndex create(MCAFile mcaFile, long fileLastModified, long fileSize) {
+		RegionIndex index = new RegionIndex();
+		index.fileLastModified = fileLastModified;
+		index.fileSize = fileSize;
+		for (int i = 0; i < Tile.CHUNKS; i++) {
+			MCAChunkData chunkData = mcaFile.getLoadedChunkData(i);
+			if (chunkData == null || chunkData.isEmpty()) {
+				continue;
+			}
+			// chunks that can't be decoded are not indexed, like chunks that are missing
+			CompoundTag chunk = chunkData.getData();
+			if (chunk == null) {
+				continue;
+			}
+			try {
+				index.add(i, chunkData, chunk);
+			} catch (Exception ex) {
+				Debug.dumpf("failed to index chunk %d in %s: %s", i, mcaFile.getFile().getName(), ex);
+				return null;
+			}
+		}
+		return index;
+	}
+
+	// reads all values the same way the filters read them from the chunk data
+	private void add(int i, MCAChunkData chunkData, CompoundTag chunk) {
+		int dataVersion = chunk.getInt("DataVersion");
+		CompoundTag level = chunk.getCompoundTag("Level");
+
+		timestamps[i] = chunkData.getTimestamp();
+		sectors[i] = chunkData.getSectors();
+		compressionTypes[i] = chunkData.getCompressionType();
+		dataVersions[i] = dataVersion;
+		xPos[i] = level.getInt("xPos");
+		zPos[i] = level.getInt("zPos");
+		inhabitedTimes[i] = level.getLong("InhabitedTime");
+		lightPopulated[i] = level.getByte("LightPopulated");
+		entitySummaries[i] = EntitySummary.create(chunk);
+
+		StringTag statusTag = level.getStringTag("Status");
+		status[i] = statusTag == null ? -1 : (byte) indexOf(statusNames, statusTag.getValue());
+
+		ChunkFilter chunkFilter = VersionController.getChunkFilter(dataVersion);
+
+		Set<String> names = hasPalettes ? chunkFilter.getBlockNames(chunk) : null;
+		if (names == null) {
+			hasPalettes = false;
+		} else {
+			BitSet palette = new BitSet(blockNames.size());
+			for (String name : names) {
+				palette.set(blockNameIndices.computeIfAbsent(name, k -> {
+					blockNames.add(k);
+					return blockNames.size() - 1;
+				}));
+			}
+			palettes[i] = palette;
+		}
+
+		int[] biomeIDs = chunkFilter.getBiomeIDs(chunk);
+		if (biomeIDs != null) {
+			biomes[i] = BiomeSet.of(biomeIDs);
+		}
+
+		exists.set(i);
+	}
+
+	private static int indexOf(List<String> dictionary, String value) {
+		int index = dictionary.indexOf(value);
+		if (index == -1) {
+			if (dictionary.size() == Byte.MAX_VALUE) {
+				throw new IllegalStateException("too many different status values");
+			}
+			dictionary.add(value);
+			index = dictionary.size() - 1;
+		}
+		return index;
+	}
+
+	// evaluates the filter for all chunks in this region without loading the region file.
+	// filter.isIndexed(this) must be true.
+	// sets the index of every chunk the filter could be evaluated on in evaluated, if it is not null.
+	public Set<Point2i> getFilteredChunks(FilterPlan filter, Point2i region, BitSet evaluated) {
+		Set<Point2i> chunks = new HashSet<>();
+		Point2i regionChunk = region.regionToChunk();
+		for (int i = exists.nextSetBit(0); i >= 0; i = exists.nextSetBit(i + 1)) {
+			try {
+				boolean matches = filter.matches(new FilterData(this, i));
+				if (evaluated != null) {
+					evaluated.set(i);
+				}
+				if (matches) {
+					chunks.add(regionChunk.add(i % Tile.SIZE_IN_CHUNKS, i / Tile.SIZE_IN_CHUNKS));
+				}
+			} catch (Exception ex) {
+				Debug.dumpException(String.format("failed to select chunk %d in region %s", i, region), ex);
+			}
+		}
+		return chunks;
+	}
+
+	long getFileLastModified() {
+		return fileLastModified;
+	}
+
+	long getFileSize() {
+		return fileSize;
+	}
+
+	BitSet getExists() {
+		return exists;
+	}
+
+	List<String> getBlockNameDictionary() {
+		return blockNames;
+	}
+
+	public boolean isValidFor(long fileLastModified, long fileSize) {
+		return this.fileLastModified == fileLastModified && this.fileSize == fileSize;
+	}
+
+	public int getTimestamp(int i) {
+		return timestamps[i];
+	}
+
+	public int getSectors(int i) {
+		return sectors[i] & 0xFF;
+	}
+
+	public CompressionType getCompressionType(int i) {
+		return compressionTypes[i];
+	}
+
+	public int getDataVersion(int i) {
+		return dataVersions[i];
+	}
+
+	public int getXPos(int i) {
+		return xPos[i];
+	}
+
+	public int getZPos(int i) {
+		return zPos[i];
+	}
+
+	public long getInhabitedTime(int i) {
+		return inhabitedTimes[i];
+	}
+
+	public byte getLightPopulated(int i) {
+		return lightPopulated[i];
+	}
+
+	public EntitySummary getEntitySummary(int i) {
+		return entitySummaries[i];
+	}
+
+	public String getStatus(int i) {
+		return status[i] == -1 ? null : statusNames.get(status[i]);
+	}
+
+	public boolean hasPalettes() {
+		return hasPalettes;
+	}
+
+	// returns true if the palettes of this chunk contain all block names
+	public boolean containsBlockNames(int i, BlockNameSet names) {
+		BitSet palette = palettes[i];
+		for (int bit : resolvedBlockNames.computeIfAbsent(names, this::resolveBlockNames)) {
+			if (!palette.get(bit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// names that are not in the dictionary of this region get a bit that is not set in any palette
+	private int[] resolveBlockNames(BlockNameSet names) {
+		int[] bits = new int[names.size()];
+		for (int n = 0; n < bits.length; n++) {
+			bits[n] = blockNameIndices.getOrDefault(names.getNamespacedName(n), blockNames.size());
+		}
+		return bits;
+	}
+
+	// returns null if the chunk has no biomes
+	public BiomeSet getBiomes(int i) {
+		return biomes[i];
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(VERSION);
+		out.writeLong(fileLastModified);
+		out.writeLong(fileSize);
+		writeBitSet(out, exists);
+
+		out.writeByte(statusNames.size());
+		for (String name : statusNames) {
+			out.writeUTF(name);
+		}
+		out.writeBoolean(hasPalettes);
+		if (hasPalettes) {
+			out.writeInt(blockNames.size());
+			for (String name : blockNames) {
+				out.writeUTF(name);
+			}
+		}
+
+		// entity ids are stored in a dictionary as well, the summaries only reference them
+		List<String> entityNames = new ArrayList<>();
+		Map<String, Integer> entityNameIndices = new HashMap<>();
+		for (int i = exists.nextSetBit(0); i >= 0; i = exists.nextSetBit(i + 1)) {
+			for (String id : entitySummaries[i].getEntityCounts().keySet()) {
+				entityNameIndices.computeIfAbsent(id, k -> {
+					entityNames.add(k);
+					return entityNames.size() - 1;
+				});
+			}
+		}
+		out.writeInt(entityNames.size());
+		for (String name : entityNames) {
+			out.writeUTF(name);
+		}
+
+		for (int i = exists.nextSetBit(0); i >= 0; i = exists.nextSetBit(i + 1)) {
+			out.writeInt(timestamps[i]);
+			out.writeByte(sectors[i]);
+			out.writeByte(compressionTypes[i].getByte());
+			out.writeInt(dataVersions[i]);
+			out.writeInt(xPos[i]);
+			out.writeInt(zPos[i]);
+			out.writeLong(inhabitedTimes[i]);
+			out.writeByte(lightPopulated[i]);
+			EntitySummary entitySummary = entitySummaries[i];
+			out.writeInt(entitySummary.getEntityAmount());
+			out.writeInt(entitySummary.getTileEntityAmount());
+			out.writeInt(entitySummary.getEntityCounts().size());
+			for (Map.Entry<String, Integer> entry : entitySummary.getEntityCounts().entrySet()) {
+				out.writeInt(entityNameIndices.get(entry.getKey()));
+				out.writeInt(entry.getValue());
+			}
+			out.writeByte(status[i]);
+			if (hasPalettes) {
+				writeBitSet(out, palettes[i]);
+			}
+			out.writeBoolean(biomes[i] != null);
+			if (biomes[i] != null) {
+				writeLongs(out, biomes[i].toLongArray());
+			}
+		}
+	}
+
+	static RegionIndex read(DataInputStream in) throws IOException {
+		int version = in.readInt();
+		if (version != VERSION) {
+			Debug.dumpf("outdated chunk index version %d", version);
+			return null;
+		}
+		RegionIndex index = new RegionIndex();
+		index.fileLastModified = in.readLong();
+		index.fileSize = in.readLong();
+		index.exists.or(readBitSet(in));
+
+		int statusCount = in.readByte();
+		for (int i = 0; i < statusCount; i++) {
+			index.statusNames.add(in.readUTF());
+		}
+		index.hasPalettes = in.readBoolean();
+		if (index.hasPalettes) {
+			int blockNameCount = in.readInt();
+			for (int i = 0; i < blockNameCount; i++) {
+				String name = in.readUTF();
+				index.blockNames.add(name);
+				index.blockNameIndices.put(name, i);
+			}
+		}
+		String[] entityNames = new String[in.readInt()];
+		for (int i = 0; i < entityNames.length; i++) {
+			entityNames[i] = in.readUTF();
+		}
+
+		for (int i = index.exists.nextSetBit(0); i >= 0; i = index.exists.nextSetBit(i + 1)) {
+			index.timestamps[i] = in.readInt();
+			index.sectors[i] = in.readByte();
+			index.compressionTypes[i] = CompressionType.fromByte(in.readByte());
+			index.dataVersions[i] = in.readInt();
+			index.xPos[i] = in.readInt();
+			index.zPos[i] = in.readInt();
+			index.inhabitedTimes[i] = in.readLong();
+			index.lightPopulated[i] = in.readByte();
+			int entityAmount = in.readInt();
+			int tileEntityAmount = in.readInt();
+			int entityCountsSize = in.readInt();
+			if (entityAmount == 0 && tileEntityAmount == 0 && entityCountsSize == 0) {
+				index.entitySummaries[i] = EntitySummary.EMPTY;
+			} else {
+				Map<String, Integer> entityCounts = new HashMap<>(entityCountsSize * 2);
+				for (int j = 0; j < entityCountsSize; j++) {
+					entityCounts.put(entityNames[in.readInt()], in.readInt());
+				}
+				index.entitySummaries[i] = new EntitySummary(entityCounts, entityAmount, tileEntityAmount);
+			}
+			index.status[i] = in.readByte();
+			if (index.hasPalettes) {
+				index.palettes[i] = readBitSet(in);
+			}
+			if (in.readBoolean()) {
+				index.biomes[i] = BiomeSet.valueOf(readLongs(in));
+			}
+		}
+		return index;
+	}
+
+	private static void writeBitSet(DataOutputStream out, BitSet bitSet) throws IOException {
+		writeLongs(out, bitSet.toLongArray());
+	}
+
+	private static BitSet readBitSet(DataInputStream in) throws IOException {
+		return BitSet.valueOf(readLongs(in));
+	}
+
+	private static void writeLongs(DataOutputStream out, long[] words) throws IOException {
+		out.writeShort(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	private static long[] readLongs(DataInputStream in) throws IOException {
+		long[] words = new long[in.readUnsignedShort()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		return words;
+	}
+}
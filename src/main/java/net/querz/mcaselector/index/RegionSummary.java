@@ -0,0 +1,164 @@
+package net.querz.mcaselector.index;
+
+import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.filter.ChunkField;
+import net.querz.mcaselector.filter.FilterData;
+import net.querz.mcaselector.version.BiomeSet;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+// a small summary of all chunks in a region file, derived from its RegionIndex.
+// filters use it to rule out a whole region file before the file or its index is read.
+// block names and entity ids are stored in bloom filters, biomes as the union of the biomes of all chunks
+// and each ChunkField as the minimum and maximum over all chunks.
+public class RegionSummary {
+
+	static final int VERSION = 1;
+
+	private static final int FIELDS = ChunkField.values().length;
+
+	private long fileLastModified;
+	private long fileSize;
+
+	private int chunkCount;
+	private final long[] min = new long[FIELDS];
+	private final long[] max = new long[FIELDS];
+
+	// null if not all chunks in this region have palettes
+	private BloomFilter blockNames;
+	private BloomFilter entityIDs;
+	// null if no chunk in this region has biomes
+	private BiomeSet biomes;
+
+	private RegionSummary() {}
+
+	public static RegionSummary create(RegionIndex index) {
+		RegionSummary summary = new RegionSummary();
+		summary.fileLastModified = index.getFileLastModified();
+		summary.fileSize = index.getFileSize();
+		Arrays.fill(summary.min, Long.MAX_VALUE);
+		Arrays.fill(summary.max, Long.MIN_VALUE);
+
+		Set<String> entityIDs = new HashSet<>();
+		BitSet exists = index.getExists();
+		for (int i = exists.nextSetBit(0); i >= 0; i = exists.nextSetBit(i + 1)) {
+			summary.chunkCount++;
+			FilterData data = new FilterData(index, i);
+			for (ChunkField field : ChunkField.values()) {
+				long value = data.getField(field);
+				summary.min[field.ordinal()] = Math.min(summary.min[field.ordinal()], value);
+				summary.max[field.ordinal()] = Math.max(summary.max[field.ordinal()], value);
+			}
+			entityIDs.addAll(index.getEntitySummary(i).getEntityCounts().keySet());
+			BiomeSet chunkBiomes = index.getBiomes(i);
+			if (chunkBiomes != null) {
+				summary.biomes = summary.biomes == null ? chunkBiomes : summary.biomes.or(chunkBiomes);
+			}
+		}
+
+		if (index.hasPalettes()) {
+			summary.blockNames = new BloomFilter(index.getBlockNameDictionary().size());
+			index.getBlockNameDictionary().forEach(summary.blockNames::add);
+		}
+		summary.entityIDs = new BloomFilter(entityIDs.size());
+		entityIDs.forEach(summary.entityIDs::add);
+		return summary;
+	}
+
+	public boolean isValidFor(long fileLastModified, long fileSize) {
+		return this.fileLastModified == fileLastModified && this.fileSize == fileSize;
+	}
+
+	public boolean isEmpty() {
+		return chunkCount == 0;
+	}
+
+	public long getMin(ChunkField field) {
+		return min[field.ordinal()];
+	}
+
+	public long getMax(ChunkField field) {
+		return max[field.ordinal()];
+	}
+
+	public boolean hasBlockNames() {
+		return blockNames != null;
+	}
+
+	// returns false if no chunk in this region has this namespaced block name in its palettes
+	public boolean mightContainBlockName(String name) {
+		return blockNames == null || blockNames.mightContain(name);
+	}
+
+	// returns false if no chunk in this region has an entity with this id
+	public boolean mightContainEntityID(String id) {
+		return entityIDs.mightContain(id);
+	}
+
+	// returns null if no chunk in this region has biomes
+	public BiomeSet getBiomes() {
+		return biomes;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(VERSION);
+		out.writeLong(fileLastModified);
+		out.writeLong(fileSize);
+		out.writeShort(chunkCount);
+		out.writeByte(FIELDS);
+		for (int i = 0; i < FIELDS; i++) {
+			out.writeLong(min[i]);
+			out.writeLong(max[i]);
+		}
+		out.writeBoolean(blockNames != null);
+		if (blockNames != null) {
+			blockNames.write(out);
+		}
+		entityIDs.write(out);
+		out.writeBoolean(biomes != null);
+		if (biomes != null) {
+			long[] words = biomes.toLongArray();
+			out.writeShort(words.length);
+			for (long word : words) {
+				out.writeLong(word);
+			}
+		}
+	}
+
+	static RegionSummary read(DataInputStream in) throws IOException {
+		int version = in.readInt();
+		if (version != VERSION) {
+			Debug.dumpf("outdated region summary version %d", version);
+			return null;
+		}
+		RegionSummary summary = new RegionSummary();
+		summary.fileLastModified = in.readLong();
+		summary.fileSize = in.readLong();
+		summary.chunkCount = in.readUnsignedShort();
+		if (in.readUnsignedByte() != FIELDS) {
+			Debug.dump("outdated region summary fields");
+			return null;
+		}
+		for (int i = 0; i < FIELDS; i++) {
+			summary.min[i] = in.readLong();
+			summary.max[i] = in.readLong();
+		}
+		if (in.readBoolean()) {
+			summary.blockNames = BloomFilter.read(in);
+		}
+		summary.entityIDs = BloomFilter.read(in);
+		if (in.readBoolean()) {
+			long[] words = new long[in.readUnsignedShort()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = in.readLong();
+			}
+			summary.biomes = BiomeSet.valueOf(words);
+		}
+		return summary;
+	}
+}
@@ -35,4 +35,39 @@ public class ByteArrayPointer extends InputStream {
 			throw new IOException(ex);
 		}
 	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int available = data.length - pointer;
+		if (available <= 0) {
+			return -1;
+		}
+		len = Math.min(len, available);
+		System.arraycopy(data, pointer, b, off, len);
+		pointer += len;
+		return len;
+	}
+
+	// the underlying array and the current position, so that data can be decoded without copying it
+	byte[] getArray() {
+		return data;
+	}
+
+	int getPosition() {
+		return pointer;
+	}
+
+	// reads exactly length bytes starting at the current position
+	public byte[] readBytes(int length) throws IOException {
+		if (length < 0 || pointer < 0 || length > data.length - pointer) {
+			throw new IOException(String.format("can't read %d bytes at position %d of %d", length, pointer, data.length));
+		}
+		byte[] b = new byte[length];
+		System.arraycopy(data, pointer, b, 0, length);
+		pointer += length;
+		return b;
+	}
 }
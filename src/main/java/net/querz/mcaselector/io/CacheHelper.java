@@ -1,6 +1,7 @@
 package net.querz.mcaselector.io;
 
 import net.querz.mcaselector.Config;
+import net.querz.mcaselector.index.FilterResultCache;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.tiles.Tile;
 import net.querz.mcaselector.tiles.TileMap;
@@ -12,8 +13,13 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 
 public final class CacheHelper {
@@ -26,7 +32,27 @@ public final class CacheHelper {
 			return;
 		}
 
-		progressChannel.setMax(files.length);
+		boolean scaleOnly = zoomLevel != null;
+
+		// the overview images are generated from the images of the max zoom level,
+		// so they can only be generated once all regions are done
+		Set<Point2i> overviews = new HashSet<>();
+		if (!scaleOnly) {
+			for (File file : files) {
+				Point2i region = FileHelper.parseMCAFileName(file);
+				if (region != null) {
+					overviews.add(OverviewImageGenerator.regionToOverview(region));
+				}
+			}
+			Progress overviewProgressChannel = progressChannel;
+			progressChannel = new OverviewProgress(progressChannel, files.length, () -> {
+				for (Point2i overview : overviews) {
+					OverviewImageGenerator.generate(overview, overviewProgressChannel);
+				}
+			});
+		}
+
+		progressChannel.setMax(files.length + overviews.size());
 		progressChannel.updateProgress(files[0].getName(), 0);
 
 		for (File file : files) {
@@ -34,7 +60,6 @@ public final class CacheHelper {
 			if (m.find()) {
 				int x = Integer.parseInt(m.group("regionX"));
 				int z = Integer.parseInt(m.group("regionZ"));
-				boolean scaleOnly = zoomLevel != null;
 				float zoomLevelSupplier = scaleOnly ? zoomLevel : 1;
 				RegionImageGenerator.generate(new Tile(new Point2i(x, z)), null, (i, u) -> {}, () -> zoomLevelSupplier, scaleOnly, progressChannel);
 			}
@@ -42,8 +67,11 @@ public final class CacheHelper {
 	}
 
 	public static void clearAllCache(TileMap tileMap) {
-		for (File cacheDir : Config.getCacheDirs()) {
-			File[] files = cacheDir.listFiles((dir, name) -> name.matches("^r\\.-?\\d+\\.-?\\d+\\.png$"));
+		List<File> cacheDirs = new ArrayList<>(Arrays.asList(Config.getCacheDirs()));
+		cacheDirs.add(Config.getOverviewCacheDir());
+		cacheDirs.add(Config.getIndexCacheDir());
+		for (File cacheDir : cacheDirs) {
+			File[] files = cacheDir.listFiles((dir, name) -> name.matches("^[ro]\\.-?\\d+\\.-?\\d+\\.(png|idx|sum)$"));
 			if (files != null) {
 				for (File file : files) {
 					if (!file.isDirectory()) {
@@ -55,6 +83,7 @@ public final class CacheHelper {
 				}
 			}
 		}
+		FilterResultCache.clear();
 		updateVersionFile();
 		tileMap.clear();
 		tileMap.update();
@@ -70,6 +99,7 @@ public final class CacheHelper {
 					}
 				}
 			}
+			OverviewImageGenerator.invalidate(regionBlock);
 		}
 		tileMap.clear();
 		tileMap.update();
@@ -86,6 +116,7 @@ public final class CacheHelper {
 				}
 				tileMap.clearTile(entry.getKey());
 			}
+			OverviewImageGenerator.invalidate(entry.getKey());
 		}
 		tileMap.update();
 	}
@@ -146,4 +177,52 @@ public final class CacheHelper {
 			Debug.dumpException("failed to write cache version file", ex);
 		}
 	}
+
+	// passes all progress through and counts the regions, calling onRegionsDone once all regions have been cached
+	private static class OverviewProgress implements Progress {
+
+		private final Progress progressChannel;
+		private final int regions;
+		private final Runnable onRegionsDone;
+		private final AtomicInteger regionsDone = new AtomicInteger(0);
+
+		private OverviewProgress(Progress progressChannel, int regions, Runnable onRegionsDone) {
+			this.progressChannel = progressChannel;
+			this.regions = regions;
+			this.onRegionsDone = onRegionsDone;
+		}
+
+		@Override
+		public void setMax(int max) {
+			progressChannel.setMax(max);
+		}
+
+		@Override
+		public void updateProgress(String msg, int progress) {
+			progressChannel.updateProgress(msg, progress);
+		}
+
+		@Override
+		public void done(String msg) {
+			progressChannel.done(msg);
+		}
+
+		@Override
+		public void incrementProgress(String msg) {
+			incrementProgress(msg, 1);
+		}
+
+		@Override
+		public void incrementProgress(String msg, int progress) {
+			progressChannel.incrementProgress(msg, progress);
+			if (regionsDone.addAndGet(progress) == regions) {
+				onRegionsDone.run();
+			}
+		}
+
+		@Override
+		public void setMessage(String msg) {
+			progressChannel.setMessage(msg);
+		}
+	}
 }
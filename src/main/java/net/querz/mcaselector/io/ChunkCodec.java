@@ -0,0 +1,290 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.Config;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// compresses and decompresses chunk data with an Inflater, a Deflater and byte buffers that are reused by each thread.
+// allocating them per chunk is expensive, and the native memory of an Inflater or Deflater is only released when it is
+// ended or finalized. gzip is handled as raw deflate data with its own header and trailer, so it can reuse them as well.
+// the data returned by a codec is only valid until the same kind of data is requested again on the same thread.
+final class ChunkCodec {
+
+	private static final int GZIP_MAGIC = 0x8B1F;
+	// no flags, modification time, extra flags or operating system, like the header written by GZIPOutputStream
+	private static final byte[] GZIP_HEADER = {0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+	private static final int GZIP_HEADER_SIZE = 10;
+	private static final int GZIP_TRAILER_SIZE = 8;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private static final ThreadLocal<ChunkCodec> codec = ThreadLocal.withInitial(ChunkCodec::new);
+
+	private final Inflater zlibInflater = new Inflater();
+	private final Inflater gzipInflater = new Inflater(true);
+	private final Deflater zlibDeflater = new Deflater();
+	private final Deflater gzipDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private final CRC32 crc = new CRC32();
+
+	// compressed data read from a file
+	private byte[] input = new byte[16 * 1024];
+	// the result of the last decompression
+	private final Buffer decompressed = new Buffer(128 * 1024);
+	// uncompressed data that is about to be compressed
+	private final Buffer uncompressed = new Buffer(128 * 1024);
+	// the result of the last compression, which is copied before it is returned
+	private final Buffer compressed = new Buffer(16 * 1024);
+	// the results of decompressToBuffer(), created when they are first used
+	private final Buffer[] decompressedBuffers = new Buffer[2];
+
+	private ChunkCodec() {}
+
+	static ChunkCodec get() {
+		return codec.get();
+	}
+
+	// returns null if there is no data for this compression type
+	DataInputStream decompress(CompressionType compressionType, byte[] data, int offset, int length) throws IOException {
+		if (!decompress(compressionType, data, offset, length, decompressed)) {
+			return null;
+		}
+		return new DataInputStream(new ByteArrayInputStream(decompressed.buf, 0, decompressed.size));
+	}
+
+	// decompresses the data into one of two buffers that are not used by decompress(),
+	// so that the decompressed data of multiple chunks can be used at the same time.
+	// returns null if there is no data for this compression type.
+	Buffer decompressToBuffer(CompressionType compressionType, byte[] data, int buffer) throws IOException {
+		if (decompressedBuffers[buffer] == null) {
+			decompressedBuffers[buffer] = new Buffer(128 * 1024);
+		}
+		if (!decompress(compressionType, data, 0, data.length, decompressedBuffers[buffer])) {
+			return null;
+		}
+		return decompressedBuffers[buffer];
+	}
+
+	private boolean decompress(CompressionType compressionType, byte[] data, int offset, int length, Buffer target) throws IOException {
+		switch (compressionType) {
+		case GZIP:
+			inflateGZIP(data, offset, length, target);
+			return true;
+		case ZLIB:
+			inflate(zlibInflater, data, offset, length, target);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	// decompresses length bytes at the current position of the pointer without copying them
+	DataInputStream decompress(CompressionType compressionType, ByteArrayPointer ptr, int length) throws IOException {
+		byte[] data = ptr.getArray();
+		int offset = ptr.getPosition();
+		if (offset < 0 || offset > data.length) {
+			throw new EOFException("chunk data starts outside of the file at " + offset);
+		}
+		return decompress(compressionType, data, offset, Math.min(length, data.length - offset));
+	}
+
+	// reads and decompresses length bytes at the current position of the file
+	DataInputStream decompress(CompressionType compressionType, RandomAccessFile raf, int length) throws IOException {
+		if (compressionType == CompressionType.NONE) {
+			return null;
+		}
+		length = (int) Math.max(Math.min(length, raf.length() - raf.getFilePointer()), 0);
+		if (input.length < length) {
+			input = new byte[Math.max(length, input.length * 2)];
+		}
+		raf.readFully(input, 0, length);
+		return decompress(compressionType, input, 0, length);
+	}
+
+	// returns an empty buffer for data that is compressed with compress()
+	Buffer getOutputBuffer() {
+		uncompressed.reset();
+		return uncompressed;
+	}
+
+	// compresses the data with the compression level and strategy of the Config.
+	// returns null if there is no data for this compression type.
+	byte[] compress(CompressionType compressionType, Buffer data) {
+		compressed.reset();
+		switch (compressionType) {
+		case GZIP:
+			compressed.write(GZIP_HEADER, 0, GZIP_HEADER_SIZE);
+			deflate(gzipDeflater, data);
+			crc.reset();
+			crc.update(data.buf, 0, data.size);
+			compressed.writeIntLE((int) crc.getValue());
+			compressed.writeIntLE(data.size);
+			break;
+		case ZLIB:
+			deflate(zlibDeflater, data);
+			break;
+		default:
+			return null;
+		}
+		return Arrays.copyOf(compressed.buf, compressed.size);
+	}
+
+	private void deflate(Deflater deflater, Buffer data) {
+		deflater.reset();
+		deflater.setLevel(Config.getCompressionLevel());
+		deflater.setStrategy(Config.getCompressionStrategy().getStrategy());
+		deflater.setInput(data.buf, 0, data.size);
+		deflater.finish();
+		compressed.ensureCapacity(compressed.size + data.size / 4 + 64);
+		while (!deflater.finished()) {
+			if (compressed.size == compressed.buf.length) {
+				compressed.ensureCapacity(compressed.size + 1);
+			}
+			compressed.size += deflater.deflate(compressed.buf, compressed.size, compressed.buf.length - compressed.size);
+		}
+	}
+
+	private void inflate(Inflater inflater, byte[] data, int offset, int length, Buffer target) throws IOException {
+		inflater.reset();
+		inflater.setInput(data, offset, length);
+		target.reset();
+		target.ensureCapacity(length * 4);
+		try {
+			while (!inflater.finished()) {
+				if (target.size == target.buf.length) {
+					target.ensureCapacity(target.size + 1);
+				}
+				int n = inflater.inflate(target.buf, target.size, target.buf.length - target.size);
+				if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new EOFException("unexpected end of compressed chunk data");
+				}
+				target.size += n;
+			}
+		} catch (DataFormatException ex) {
+			throw new ZipException(ex.getMessage());
+		}
+	}
+
+	private void inflateGZIP(byte[] data, int offset, int length, Buffer target) throws IOException {
+		int end = offset + length;
+		if (length < GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE || readShortLE(data, offset) != GZIP_MAGIC) {
+			throw new ZipException("Not in GZIP format");
+		}
+		if (data[offset + 2] != Deflater.DEFLATED) {
+			throw new ZipException("Unsupported compression method");
+		}
+		int flags = data[offset + 3] & 0xFF;
+		int pos = offset + GZIP_HEADER_SIZE;
+		if ((flags & FEXTRA) != 0) {
+			pos += readShortLE(data, pos) + 2;
+		}
+		if ((flags & FNAME) != 0) {
+			pos = skipZeroTerminated(data, pos, end);
+		}
+		if ((flags & FCOMMENT) != 0) {
+			pos = skipZeroTerminated(data, pos, end);
+		}
+		if ((flags & FHCRC) != 0) {
+			pos += 2;
+		}
+		if (pos > end) {
+			throw new EOFException("unexpected end of gzip header");
+		}
+
+		inflate(gzipInflater, data, pos, end - pos, target);
+
+		int trailer = end - gzipInflater.getRemaining();
+		if (end - trailer < GZIP_TRAILER_SIZE) {
+			throw new EOFException("unexpected end of gzip trailer");
+		}
+		crc.reset();
+		crc.update(target.buf, 0, target.size);
+		if (readIntLE(data, trailer) != (int) crc.getValue() || readIntLE(data, trailer + 4) != target.size) {
+			throw new ZipException("Corrupt GZIP trailer");
+		}
+	}
+
+	private static int skipZeroTerminated(byte[] data, int pos, int end) {
+		while (pos < end && data[pos++] != 0);
+		return pos;
+	}
+
+	private static int readShortLE(byte[] data, int pos) {
+		return data[pos] & 0xFF | (data[pos + 1] & 0xFF) << 8;
+	}
+
+	private static int readIntLE(byte[] data, int pos) {
+		return readShortLE(data, pos) | readShortLE(data, pos + 2) << 16;
+	}
+
+	// a growable byte array that is reused instead of a ByteArrayOutputStream
+	static final class Buffer extends OutputStream {
+
+		private byte[] buf;
+		private int size;
+
+		private Buffer(int capacity) {
+			buf = new byte[capacity];
+		}
+
+		private void reset() {
+			size = 0;
+		}
+
+		byte[] getArray() {
+			return buf;
+		}
+
+		int size() {
+			return size;
+		}
+
+		// overwrites 4 bytes that have already been written, e.g. the size of a list that is only known afterwards
+		void writeInt(int position, int i) {
+			buf[position] = (byte) (i >>> 24);
+			buf[position + 1] = (byte) (i >>> 16);
+			buf[position + 2] = (byte) (i >>> 8);
+			buf[position + 3] = (byte) i;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+			}
+		}
+
+		@Override
+		public void write(int b) {
+			ensureCapacity(size + 1);
+			buf[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ensureCapacity(size + len);
+			System.arraycopy(b, off, buf, size, len);
+			size += len;
+		}
+
+		private void writeShortLE(int s) {
+			write(s & 0xFF);
+			write(s >>> 8 & 0xFF);
+		}
+
+		private void writeIntLE(int i) {
+			writeShortLE(i & 0xFFFF);
+			writeShortLE(i >>> 16);
+		}
+	}
+}
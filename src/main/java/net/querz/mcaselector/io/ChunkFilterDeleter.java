@@ -1,7 +1,9 @@
 package net.querz.mcaselector.io;
 
 import net.querz.mcaselector.Config;
+import net.querz.mcaselector.filter.FilterPlan;
 import net.querz.mcaselector.filter.GroupFilter;
+import net.querz.mcaselector.index.ChunkIndex;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.progress.Progress;
@@ -35,18 +37,20 @@ public class ChunkFilterDeleter {
 		progressChannel.setMax(files.length);
 		progressChannel.updateProgress(files[0].getName(), 0);
 
+		FilterPlan plan = FilterPlan.compile(filter);
+
 		for (File file : files) {
-			MCAFilePipe.addJob(new MCADeleteFilterLoadJob(file, filter, selection, progressChannel));
+			MCAFilePipe.addJob(new MCADeleteFilterLoadJob(file, plan, selection, progressChannel));
 		}
 	}
 
 	private static class MCADeleteFilterLoadJob extends LoadDataJob {
 
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Map<Point2i, Set<Point2i>> selection;
 		private final Progress progressChannel;
 
-		private MCADeleteFilterLoadJob(File file, GroupFilter filter, Map<Point2i, Set<Point2i>> selection, Progress progressChannel) {
+		private MCADeleteFilterLoadJob(File file, FilterPlan filter, Map<Point2i, Set<Point2i>> selection, Progress progressChannel) {
 			super(file);
 			this.filter = filter;
 			this.selection = selection;
@@ -61,7 +65,10 @@ public class ChunkFilterDeleter {
 				int regionZ = Integer.parseInt(m.group("regionZ"));
 				Point2i location = new Point2i(regionX, regionZ);
 
-				if (!filter.appliesToRegion(location) || selection != null && !selection.containsKey(location)) {
+				FilterPlan regionFilter = filter.forRegion(location);
+
+				if (regionFilter.isNeverMatching() || selection != null && !selection.containsKey(location)
+						|| !regionFilter.mayMatch(ChunkIndex.loadSummary(location, getFile()))) {
 					Debug.dump("filter does not apply to file " + getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
 					return;
@@ -69,7 +76,7 @@ public class ChunkFilterDeleter {
 
 				byte[] data = load();
 				if (data != null) {
-					MCAFilePipe.executeProcessData(new MCADeleteFilterProcessJob(getFile(), data, filter, selection != null ? selection.get(location) : null, progressChannel));
+					MCAFilePipe.executeProcessData(new MCADeleteFilterProcessJob(getFile(), data, regionFilter, selection != null ? selection.get(location) : null, progressChannel));
 				} else {
 					Debug.errorf("error loading mca file %s", getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
@@ -84,10 +91,10 @@ public class ChunkFilterDeleter {
 	private static class MCADeleteFilterProcessJob extends ProcessDataJob {
 
 		private final Progress progressChannel;
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Set<Point2i> selection;
 
-		private MCADeleteFilterProcessJob(File file, byte[] data, GroupFilter filter, Set<Point2i> selection, Progress progressChannel) {
+		private MCADeleteFilterProcessJob(File file, byte[] data, FilterPlan filter, Set<Point2i> selection, Progress progressChannel) {
 			super(file, data);
 			this.filter = filter;
 			this.selection = selection;
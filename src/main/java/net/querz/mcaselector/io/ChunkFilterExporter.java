@@ -1,7 +1,9 @@
 package net.querz.mcaselector.io;
 
 import net.querz.mcaselector.Config;
+import net.querz.mcaselector.filter.FilterPlan;
 import net.querz.mcaselector.filter.GroupFilter;
+import net.querz.mcaselector.index.ChunkIndex;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.progress.Progress;
@@ -35,19 +37,21 @@ public class ChunkFilterExporter {
 		progressChannel.setMax(files.length);
 		progressChannel.updateProgress(files[0].getName(), 0);
 
+		FilterPlan plan = FilterPlan.compile(filter);
+
 		for (File file : files) {
-			MCAFilePipe.addJob(new MCAExportFilterLoadJob(file, filter, selection, destination, progressChannel));
+			MCAFilePipe.addJob(new MCAExportFilterLoadJob(file, plan, selection, destination, progressChannel));
 		}
 	}
 
 	private static class MCAExportFilterLoadJob extends LoadDataJob {
 
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Map<Point2i, Set<Point2i>> selection;
 		private final Progress progressChannel;
 		private final File destination;
 
-		private MCAExportFilterLoadJob(File file, GroupFilter filter, Map<Point2i, Set<Point2i>> selection, File destination, Progress progressChannel) {
+		private MCAExportFilterLoadJob(File file, FilterPlan filter, Map<Point2i, Set<Point2i>> selection, File destination, Progress progressChannel) {
 			super(file);
 			this.filter = filter;
 			this.selection = selection;
@@ -63,7 +67,10 @@ public class ChunkFilterExporter {
 				int regionZ = Integer.parseInt(m.group("regionZ"));
 				Point2i location = new Point2i(regionX, regionZ);
 
-				if (!filter.appliesToRegion(location) || selection != null && !selection.containsKey(location)) {
+				FilterPlan regionFilter = filter.forRegion(location);
+
+				if (regionFilter.isNeverMatching() || selection != null && !selection.containsKey(location)
+						|| !regionFilter.mayMatch(ChunkIndex.loadSummary(location, getFile()))) {
 					Debug.dump("filter does not apply to file " + getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
 					return;
@@ -79,7 +86,7 @@ public class ChunkFilterExporter {
 
 				byte[] data = load();
 				if (data != null) {
-					MCAFilePipe.executeProcessData(new MCAExportFilterProcessJob(getFile(), data, filter, selection == null ? null : selection.get(location), to, progressChannel));
+					MCAFilePipe.executeProcessData(new MCAExportFilterProcessJob(getFile(), data, regionFilter, selection == null ? null : selection.get(location), to, progressChannel));
 				} else {
 					Debug.errorf("error loading mca file %s", getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
@@ -94,11 +101,11 @@ public class ChunkFilterExporter {
 	private static class MCAExportFilterProcessJob extends ProcessDataJob {
 
 		private final Progress progressChannel;
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Set<Point2i> selection;
 		private final File destination;
 
-		private MCAExportFilterProcessJob(File file, byte[] data, GroupFilter filter, Set<Point2i> selection, File destination, Progress progressChannel) {
+		private MCAExportFilterProcessJob(File file, byte[] data, FilterPlan filter, Set<Point2i> selection, File destination, Progress progressChannel) {
 			super(file, data);
 			this.filter = filter;
 			this.selection = selection;
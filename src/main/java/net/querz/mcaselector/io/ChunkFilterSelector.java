@@ -1,7 +1,14 @@
 package net.querz.mcaselector.io;
 
 import net.querz.mcaselector.Config;
+import net.querz.mcaselector.filter.ChunkPart;
+import net.querz.mcaselector.filter.FilterPlan;
 import net.querz.mcaselector.filter.GroupFilter;
+import net.querz.mcaselector.index.ChunkIndex;
+import net.querz.mcaselector.index.FilterResultCache;
+import net.querz.mcaselector.index.RegionFingerprint;
+import net.querz.mcaselector.index.RegionIndex;
+import net.querz.mcaselector.index.RegionSummary;
 import net.querz.mcaselector.tiles.Tile;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.point.Point2i;
@@ -9,10 +16,13 @@ import net.querz.mcaselector.progress.Progress;
 import net.querz.mcaselector.progress.Timer;
 import net.querz.mcaselector.text.Translation;
 import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 
@@ -36,19 +46,84 @@ public class ChunkFilterSelector {
 		progressChannel.setMax(files.length);
 		progressChannel.updateProgress(files[0].getName(), 0);
 
+		FilterPlan plan = FilterPlan.compile(filter);
+		Debug.dumpf("filter plan: %s, reading %s", plan, plan.getRequiredParts());
+
 		for (File file : files) {
-			MCAFilePipe.addJob(new MCASelectFilterLoadJob(file, filter, radius, callback, progressChannel));
+			MCAFilePipe.addJob(new MCASelectFilterLoadJob(file, plan, radius, callback, progressChannel));
+		}
+	}
+
+	private static void select(Point2i location, Set<Point2i> chunks, int radius, Consumer<Map<Point2i, Set<Point2i>>> callback) {
+		if (chunks.size() == Tile.CHUNKS) {
+			chunks = null;
+		}
+		Map<Point2i, Set<Point2i>> region = new HashMap<>();
+		region.put(location, chunks);
+
+		region = applyRadius(region, radius);
+
+		callback.accept(region);
+	}
+
+	private static Map<Point2i, Set<Point2i>> applyRadius(Map<Point2i, Set<Point2i>> region, int radius) {
+		if (radius <= 0) {
+			return region;
+		}
+
+		Map<Point2i, Set<Point2i>> output = new HashMap<>();
+
+		for (Map.Entry<Point2i, Set<Point2i>> reg : region.entrySet()) {
+			if (reg.getValue() == null) {
+				output.put(reg.getKey(), null);
+				// full region
+				Point2i startChunk = reg.getKey().regionToChunk();
+				Point2i endChunk = startChunk.add(Tile.SIZE_IN_CHUNKS - 1);
+
+				for (int x = startChunk.getX() - radius; x <= endChunk.getX() + radius; x++) {
+					for (int z = startChunk.getY() - radius; z <= endChunk.getY() + radius; z++) {
+						Point2i currentChunk = new Point2i(x, z);
+						Point2i currentRegion = currentChunk.chunkToRegion();
+
+						if (currentRegion.equals(reg.getKey())) {
+							z += Tile.SIZE_IN_CHUNKS - 1;
+							continue;
+						}
+
+						if (!output.containsKey(currentRegion)) {
+							output.put(currentRegion, new HashSet<>());
+						}
+
+						output.get(currentRegion).add(currentChunk);
+					}
+				}
+			} else {
+				output.put(reg.getKey(), new HashSet<>(reg.getValue()));
+				for (Point2i chunk : reg.getValue()) {
+					for (int x = chunk.getX() - radius; x <= chunk.getX() + radius; x++) {
+						for (int z = chunk.getY() - radius; z <= chunk.getY() + radius; z++) {
+							Point2i currentChunk = new Point2i(x, z);
+							Point2i currentRegion = currentChunk.chunkToRegion();
+							if (!output.containsKey(currentRegion)) {
+								output.put(currentRegion, new HashSet<>());
+							}
+							output.get(currentRegion).add(currentChunk);
+						}
+					}
+				}
+			}
 		}
+		return output;
 	}
 
 	private static class MCASelectFilterLoadJob extends LoadDataJob {
 
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Progress progressChannel;
 		private final Consumer<Map<Point2i, Set<Point2i>>> callback;
 		private final int radius;
 
-		private MCASelectFilterLoadJob(File file, GroupFilter filter, int radius, Consumer<Map<Point2i, Set<Point2i>>> callback, Progress progressChannel) {
+		private MCASelectFilterLoadJob(File file, FilterPlan filter, int radius, Consumer<Map<Point2i, Set<Point2i>>> callback, Progress progressChannel) {
 			super(file);
 			this.filter = filter;
 			this.radius = radius;
@@ -63,15 +138,88 @@ public class ChunkFilterSelector {
 				int regionX = Integer.parseInt(m.group("regionX"));
 				int regionZ = Integer.parseInt(m.group("regionZ"));
 
-				if (!filter.appliesToRegion(new Point2i(regionX, regionZ))) {
+				Point2i location = new Point2i(regionX, regionZ);
+				FilterPlan regionFilter = filter.forRegion(location);
+
+				if (regionFilter.isNeverMatching()) {
 					Debug.dump("filter does not apply to file " + getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
 					return;
 				}
 
+				RegionFingerprint fingerprint = readFingerprint();
+				if (fingerprint != null) {
+					Set<Point2i> cached = FilterResultCache.get(filter, location, getFile(), fingerprint);
+					if (cached == null && regionFilter != filter) {
+						cached = FilterResultCache.get(regionFilter, location, getFile(), fingerprint);
+					}
+					if (cached != null) {
+						Debug.dump("using cached filter result for " + getFile().getName());
+						select(location, cached, radius, callback);
+						progressChannel.incrementProgress(getFile().getName());
+						return;
+					}
+				}
+
+				RegionSummary summary = ChunkIndex.loadSummary(location, getFile());
+				if (!regionFilter.mayMatch(summary)) {
+					// the result is not cached, because the summary does not tell which chunks exist
+					Debug.dump("region summary rules out file " + getFile().getName());
+					progressChannel.incrementProgress(getFile().getName());
+					return;
+				}
+
+				// the filter does not need any chunk data, so we only need to load the header
+				if (regionFilter.requiresOnly(ChunkPart.HEADER)) {
+					byte[] data = load(MCAFile.SECTION_SIZE * 2);
+					if (data != null) {
+						MCAFilePipe.executeProcessData(new MCASelectFilterProcessJob(getFile(), data, regionFilter, callback, location, radius, true, 0, 0, false, (result, evaluated) -> cacheResult(fingerprint, result, evaluated), progressChannel));
+					} else {
+						Debug.errorf("error loading header of mca file %s", getFile().getName());
+						progressChannel.incrementProgress(getFile().getName());
+					}
+					return;
+				}
+
+				// the filter only needs the headers of the chunks, which are read directly from the file
+				if (regionFilter.requiresOnly(ChunkPart.HEADER, ChunkPart.CHUNK_HEADER)) {
+					Timer t = new Timer();
+					try {
+						MCAFile mca = MCAFile.readChunkHeaders(getFile());
+						BitSet evaluated = new BitSet(Tile.CHUNKS);
+						Set<Point2i> chunks = mca.getFilteredChunks(regionFilter, evaluated);
+						cacheResult(fingerprint, chunks, evaluated);
+						select(location, chunks, radius, callback);
+						Debug.dumpf("took %s to select chunks in %s using chunk headers", t, getFile().getName());
+					} catch (IOException ex) {
+						Debug.dumpException("error reading chunk headers of " + getFile().getName(), ex);
+					}
+					progressChannel.incrementProgress(getFile().getName());
+					return;
+				}
+
+				// remember the state of the file before loading it, so the index is invalidated if it changes in the meantime
+				long lastModified = getFile().lastModified();
+				long size = getFile().length();
+
+				RegionIndex index = ChunkIndex.load(location, getFile());
+				if (index != null && summary == null) {
+					ChunkIndex.saveSummary(location, RegionSummary.create(index));
+				}
+				if (index != null && regionFilter.isIndexed(index)) {
+					Timer t = new Timer();
+					BitSet evaluated = new BitSet(Tile.CHUNKS);
+					Set<Point2i> chunks = index.getFilteredChunks(regionFilter, location, evaluated);
+					cacheResult(fingerprint, chunks, evaluated);
+					select(location, chunks, radius, callback);
+					Debug.dumpf("took %s to select chunks in %s using the index", t, getFile().getName());
+					progressChannel.incrementProgress(getFile().getName());
+					return;
+				}
+
 				byte[] data = load();
 				if (data != null) {
-					MCAFilePipe.executeProcessData(new MCASelectFilterProcessJob(getFile(), data, filter, callback, new Point2i(regionX, regionZ), radius, progressChannel));
+					MCAFilePipe.executeProcessData(new MCASelectFilterProcessJob(getFile(), data, regionFilter, callback, location, radius, false, lastModified, size, index == null, (result, evaluated) -> cacheResult(fingerprint, result, evaluated), progressChannel));
 				} else {
 					Debug.errorf("error loading mca file %s", getFile().getName());
 					progressChannel.incrementProgress(getFile().getName());
@@ -81,23 +229,48 @@ public class ChunkFilterSelector {
 				progressChannel.incrementProgress(getFile().getName());
 			}
 		}
+
+		private RegionFingerprint readFingerprint() {
+			try {
+				return RegionFingerprint.read(getFile());
+			} catch (IOException ex) {
+				Debug.dumpException("failed to read header of " + getFile().getName(), ex);
+				return null;
+			}
+		}
+
+		private void cacheResult(RegionFingerprint fingerprint, Set<Point2i> chunks, BitSet evaluated) {
+			if (fingerprint != null) {
+				FilterResultCache.put(filter, getFile(), fingerprint, chunks, evaluated);
+			}
+		}
 	}
 
 	private static class MCASelectFilterProcessJob extends ProcessDataJob {
 
 		private final Progress progressChannel;
-		private final GroupFilter filter;
+		private final FilterPlan filter;
 		private final Consumer<Map<Point2i, Set<Point2i>>> callback;
 		private final Point2i location;
 		private final int radius;
+		private final boolean headerOnly;
+		private final long lastModified;
+		private final long size;
+		private final boolean createIndex;
+		private final BiConsumer<Set<Point2i>, BitSet> resultCache;
 
-		private MCASelectFilterProcessJob(File file, byte[] data, GroupFilter filter, Consumer<Map<Point2i, Set<Point2i>>> callback, Point2i location, int radius,  Progress progressChannel) {
+		private MCASelectFilterProcessJob(File file, byte[] data, FilterPlan filter, Consumer<Map<Point2i, Set<Point2i>>> callback, Point2i location, int radius, boolean headerOnly, long lastModified, long size, boolean createIndex, BiConsumer<Set<Point2i>, BitSet> resultCache, Progress progressChannel) {
 			super(file, data);
 			this.filter = filter;
 			this.callback = callback;
 			this.location = location;
 			this.progressChannel = progressChannel;
 			this.radius = radius;
+			this.headerOnly = headerOnly;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.createIndex = createIndex;
+			this.resultCache = resultCache;
 		}
 
 		@Override
@@ -105,75 +278,41 @@ public class ChunkFilterSelector {
 			//load MCAFile
 			Timer t = new Timer();
 			try {
-				MCAFile mca = MCAFile.readAll(getFile(), new ByteArrayPointer(getData()));
+				MCAFile mca = headerOnly ? MCAFile.readHeader(getFile(), new ByteArrayPointer(getData())) : MCAFile.readAllRaw(getFile(), new ByteArrayPointer(getData()));
 				if (mca != null) {
-					Set<Point2i> chunks = mca.getFilteredChunks(filter);
-					if (chunks.size() == Tile.CHUNKS) {
-						chunks = null;
-					}
-					Map<Point2i, Set<Point2i>> region = new HashMap<>();
-					region.put(location, chunks);
-
-					region = applyRadius(region);
+					BitSet evaluated = new BitSet(Tile.CHUNKS);
+					Set<Point2i> chunks = mca.getFilteredChunks(filter, evaluated);
+					resultCache.accept(chunks, evaluated);
+					select(location, chunks, radius, callback);
 
-					callback.accept(region);
+					Debug.dumpf("took %s to select chunks in %s", t, getFile().getName());
 
-					Debug.dumpf("took %s to delete chunk indices in %s", t, getFile().getName());
+					if (createIndex) {
+						RegionIndex index = RegionIndex.create(mca, lastModified, size);
+						if (index != null) {
+							MCAFilePipe.executeSaveData(new MCASelectFilterIndexSaveJob(FileHelper.createIndexFilePath(location), index, location));
+						}
+					}
 				}
 			} catch (Exception ex) {
 				Debug.dumpException("error selecting chunks in " + getFile().getName(), ex);
 			}
 			progressChannel.incrementProgress(getFile().getName());
 		}
+	}
 
-		private Map<Point2i, Set<Point2i>> applyRadius(Map<Point2i, Set<Point2i>> region) {
-			if (radius <= 0) {
-				return region;
-			}
-
-			Map<Point2i, Set<Point2i>> output = new HashMap<>();
-
-			for (Map.Entry<Point2i, Set<Point2i>> reg : region.entrySet()) {
-				if (reg.getValue() == null) {
-					output.put(reg.getKey(), null);
-					// full region
-					Point2i startChunk = reg.getKey().regionToChunk();
-					Point2i endChunk = startChunk.add(Tile.SIZE_IN_CHUNKS - 1);
-
-					for (int x = startChunk.getX() - radius; x <= endChunk.getX() + radius; x++) {
-						for (int z = startChunk.getY() - radius; z <= endChunk.getY() + radius; z++) {
-							Point2i currentChunk = new Point2i(x, z);
-							Point2i currentRegion = currentChunk.chunkToRegion();
+	private static class MCASelectFilterIndexSaveJob extends SaveDataJob<RegionIndex> {
 
-							if (currentRegion.equals(reg.getKey())) {
-								z += Tile.SIZE_IN_CHUNKS - 1;
-								continue;
-							}
+		private final Point2i location;
 
-							if (!output.containsKey(currentRegion)) {
-								output.put(currentRegion, new HashSet<>());
-							}
+		private MCASelectFilterIndexSaveJob(File file, RegionIndex data, Point2i location) {
+			super(file, data);
+			this.location = location;
+		}
 
-							output.get(currentRegion).add(currentChunk);
-						}
-					}
-				} else {
-					output.put(reg.getKey(), new HashSet<>(reg.getValue()));
-					for (Point2i chunk : reg.getValue()) {
-						for (int x = chunk.getX() - radius; x <= chunk.getX() + radius; x++) {
-							for (int z = chunk.getY() - radius; z <= chunk.getY() + radius; z++) {
-								Point2i currentChunk = new Point2i(x, z);
-								Point2i currentRegion = currentChunk.chunkToRegion();
-								if (!output.containsKey(currentRegion)) {
-									output.put(currentRegion, new HashSet<>());
-								}
-								output.get(currentRegion).add(currentChunk);
-							}
-						}
-					}
-				}
-			}
-			return output;
+		@Override
+		public void execute() {
+			ChunkIndex.save(location, getData());
 		}
 	}
 }
@@ -12,12 +12,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class ChunkImporter {
 
@@ -55,10 +60,11 @@ public class ChunkImporter {
 				progressChannel.setMessage(Translation.DIALOG_PROGRESS_COLLECTING_DATA.toString());
 			}
 
-			// if source world and target world is the same, we need to create temp files of all source files
+			// if source world and target world is the same, source files that are still needed when they are overwritten
+			// are preserved in temp files. the temp files are created while importing, so the map is filled concurrently.
 			Map<Point2i, File> tempFilesMap = null;
 			if (importDir.equals(Config.getWorldDir())) {
-				tempFilesMap = new HashMap<>();
+				tempFilesMap = new ConcurrentHashMap<>();
 			}
 			tempFiles.set(tempFilesMap);
 
@@ -84,9 +90,15 @@ public class ChunkImporter {
 
 			progressChannel.updateProgress(importFiles[0].getName(), 0);
 
-			for (Map.Entry<Point2i, Set<Point2i>> entry : targetMapping.entrySet()) {
-				Point2i targetRegion = entry.getKey();
-				Set<Point2i> sourceRegions = entry.getValue();
+			// target regions are imported row by row, so that all target regions of a source region
+			// are imported shortly after each other and the source region only needs to be read once
+			List<Point2i> targetRegions = new ArrayList<>(targetMapping.keySet());
+			targetRegions.sort(Comparator.comparingInt(Point2i::getY).thenComparingInt(Point2i::getX));
+			SourceRegionCache sourceCache = new SourceRegionCache(importDir, tempFilesMap, Config.getMaxLoadedFiles());
+			List<MCAChunkImporterLoadJob> jobs = new ArrayList<>(targetRegions.size());
+
+			for (Point2i targetRegion : targetRegions) {
+				Set<Point2i> sourceRegions = targetMapping.get(targetRegion);
 
 				if (selection == null || selection.containsKey(targetRegion)) {
 					File targetFile = FileHelper.createMCAFilePath(targetRegion);
@@ -116,26 +128,20 @@ public class ChunkImporter {
 					}
 
 					if (actualSourceRegions.size() != 0) {
-						if (tempFilesMap != null) {
-							for (Point2i sourceRegion : actualSourceRegions) {
-								if (!tempFilesMap.containsKey(sourceRegion)) {
-									try {
-										File tempFile = File.createTempFile(FileHelper.createMCAFileName(sourceRegion), null, null);
-										Files.copy(FileHelper.createMCAFilePath(sourceRegion).toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-										tempFilesMap.put(sourceRegion, tempFile);
-									} catch (Exception ex) {
-										Debug.dumpException("failed to create temp file of " + FileHelper.createMCAFilePath(sourceRegion), ex);
-									}
-								}
-							}
+						for (Point2i sourceRegion : actualSourceRegions) {
+							sourceCache.require(sourceRegion);
 						}
-
-						MCAFilePipe.addJob(new MCAChunkImporterLoadJob(targetFile, importDir, targetRegion, actualSourceRegions, offset, progressChannel, overwrite, localSourceSelection, localTargetSelection, ranges, tempFilesMap));
+						jobs.add(new MCAChunkImporterLoadJob(targetFile, importDir, targetRegion, actualSourceRegions, offset, progressChannel, overwrite, localSourceSelection, localTargetSelection, ranges, sourceCache));
 					}
 				} else {
 					progressChannel.incrementProgress(FileHelper.createMCAFileName(targetRegion));
 				}
 			}
+
+			// all jobs are planned before the first one is started, so the source cache knows how often each source region is needed
+			for (MCAChunkImporterLoadJob job : jobs) {
+				MCAFilePipe.addJob(job);
+			}
 		} catch (Exception ex) {
 			Debug.dumpException("failed creating jobs to import chunks", ex);
 		}
@@ -152,9 +158,9 @@ public class ChunkImporter {
 		private final Map<Point2i, Set<Point2i>> sourceChunks;
 		private final Set<Point2i> selection;
 		private final List<Range> ranges;
-		private final Map<Point2i, File> tempFilesMap;
+		private final SourceRegionCache sourceCache;
 
-		private MCAChunkImporterLoadJob(File targetFile, File sourceDir, Point2i target, Set<Point2i> sources, Point2i offset, Progress progressChannel, boolean overwrite, Map<Point2i, Set<Point2i>> sourceChunks, Set<Point2i> selection, List<Range> ranges, Map<Point2i, File> tempFilesMap) {
+		private MCAChunkImporterLoadJob(File targetFile, File sourceDir, Point2i target, Set<Point2i> sources, Point2i offset, Progress progressChannel, boolean overwrite, Map<Point2i, Set<Point2i>> sourceChunks, Set<Point2i> selection, List<Range> ranges, SourceRegionCache sourceCache) {
 			super(targetFile);
 			this.target = target;
 			this.sources = sources;
@@ -165,7 +171,7 @@ public class ChunkImporter {
 			this.sourceChunks = sourceChunks;
 			this.selection = selection;
 			this.ranges = ranges;
-			this.tempFilesMap = tempFilesMap;
+			this.sourceCache = sourceCache;
 		}
 
 		@Override
@@ -180,6 +186,7 @@ public class ChunkImporter {
 				} catch (IOException ex) {
 					Debug.dumpException(String.format("failed to copy file %s to %s", source, getFile()), ex);
 				}
+				sourceCache.release(sources);
 				progressChannel.incrementProgress(getFile().getName(), sources.size());
 				return;
 			}
@@ -189,17 +196,10 @@ public class ChunkImporter {
 			Map<Point2i, byte[]> sourceDataMapping = new HashMap<>();
 
 			for (Point2i sourceRegion : sources) {
-				File source;
-				if (tempFilesMap != null && tempFilesMap.containsKey(sourceRegion)) {
-					source = tempFilesMap.get(sourceRegion);
-				} else {
-					source = new File(sourceDir, FileHelper.createMCAFileName(sourceRegion));
-				}
-
-				byte[] sourceData = load(source);
+				byte[] sourceData = sourceCache.get(sourceRegion, this::load);
 
 				if (sourceData == null) {
-					Debug.errorf("error loading source mca file %s", source.getName());
+					Debug.errorf("error loading source mca file %s", FileHelper.createMCAFileName(sourceRegion));
 					continue;
 				}
 
@@ -225,7 +225,7 @@ public class ChunkImporter {
 				destData = null;
 			}
 
-			MCAFilePipe.executeProcessData(new MCAChunkImporterProcessJob(getFile(), sourceDir, target, sourceDataMapping, destData, offset, progressChannel, overwrite, sourceChunks, selection, ranges));
+			MCAFilePipe.executeProcessData(new MCAChunkImporterProcessJob(getFile(), sourceDir, target, sourceDataMapping, destData, offset, progressChannel, overwrite, sourceChunks, selection, ranges, sourceCache));
 		}
 	}
 
@@ -240,8 +240,9 @@ public class ChunkImporter {
 		private final Map<Point2i, Set<Point2i>> sourceChunks;
 		private final Set<Point2i> selection;
 		private final List<Range> ranges;
+		private final SourceRegionCache sourceCache;
 
-		private MCAChunkImporterProcessJob(File targetFile, File sourceDir, Point2i target, Map<Point2i, byte[]> sourceDataMapping, byte[] destData, Point2i offset, Progress progressChannel, boolean overwrite, Map<Point2i, Set<Point2i>> sourceChunks, Set<Point2i> selection, List<Range> ranges) {
+		private MCAChunkImporterProcessJob(File targetFile, File sourceDir, Point2i target, Map<Point2i, byte[]> sourceDataMapping, byte[] destData, Point2i offset, Progress progressChannel, boolean overwrite, Map<Point2i, Set<Point2i>> sourceChunks, Set<Point2i> selection, List<Range> ranges, SourceRegionCache sourceCache) {
 			super(targetFile, destData);
 			this.sourceDir = sourceDir;
 			this.target = target;
@@ -252,6 +253,7 @@ public class ChunkImporter {
 			this.sourceChunks = sourceChunks;
 			this.selection = selection;
 			this.ranges = ranges;
+			this.sourceCache = sourceCache;
 		}
 
 		@Override
@@ -263,7 +265,7 @@ public class ChunkImporter {
 				if (getData() == null) {
 					 destination = new MCAFile(getFile());
 				} else {
-					destination = MCAFile.readAll(getFile(), new ByteArrayPointer(getData()));
+					destination = read(getFile(), getData());
 				}
 
 				if (destination == null) {
@@ -273,14 +275,17 @@ public class ChunkImporter {
 				}
 
 				for (Map.Entry<Point2i, byte[]> sourceData : sourceDataMapping.entrySet()) {
-					MCAFile source = MCAFile.readAll(new File(sourceDir, FileHelper.createMCAFileName(sourceData.getKey())), new ByteArrayPointer(sourceData.getValue()));
+					MCAFile source = read(new File(sourceDir, FileHelper.createMCAFileName(sourceData.getKey())), sourceData.getValue());
 
 					Debug.dumpf("merging chunk from region %s into %s", sourceData.getKey(), target);
 
 					source.mergeChunksInto(destination, offset, overwrite, sourceChunks.get(sourceData.getKey()), selection == null ? null : selection.size() == 0 ? null : selection, ranges);
 				}
 
-				MCAFilePipe.executeSaveData(new MCAChunkImporterSaveJob(getFile(), destination, progressChannel));
+				// the chunks are compressed in parallel here, so the save job only needs to lay out and write the compressed data
+				destination.compressChunks();
+
+				MCAFilePipe.executeSaveData(new MCAChunkImporterSaveJob(getFile(), target, destination, progressChannel, sourceCache));
 
 			} catch (Exception ex) {
 				Debug.dumpException("failed to process chunk import for " + getFile().getName(), ex);
@@ -289,15 +294,26 @@ public class ChunkImporter {
 
 			Debug.dumpf("took %s to merge chunks into %s with offset %s", t, getFile(), offset);
 		}
+
+		// chunks are only decoded when they are merged with ranges, otherwise they are relocated or copied as they are.
+		// chunks of a source region that are imported into other target regions are never decoded by this job,
+		// so every source chunk is decoded at most once, even if the source region overlaps multiple target regions.
+		private MCAFile read(File file, byte[] data) {
+			return MCAFile.readAllRaw(file, new ByteArrayPointer(data));
+		}
 	}
 
 	private static class MCAChunkImporterSaveJob extends SaveDataJob<MCAFile> {
 
+		private final Point2i target;
 		private final Progress progressChannel;
+		private final SourceRegionCache sourceCache;
 
-		private MCAChunkImporterSaveJob(File file, MCAFile data, Progress progressChannel) {
+		private MCAChunkImporterSaveJob(File file, Point2i target, MCAFile data, Progress progressChannel, SourceRegionCache sourceCache) {
 			super(file, data);
+			this.target = target;
 			this.progressChannel = progressChannel;
+			this.sourceCache = sourceCache;
 		}
 
 		@Override
@@ -310,7 +326,7 @@ public class ChunkImporter {
 					 wroteChunks = getData().saveAll(raf);
 				}
 				if (wroteChunks) {
-					Files.move(tmpFile.toPath(), getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+					sourceCache.overwrite(target, () -> Files.move(tmpFile.toPath(), getFile().toPath(), StandardCopyOption.REPLACE_EXISTING));
 				} else {
 					Files.deleteIfExists(tmpFile.toPath());
 				}
@@ -322,6 +338,151 @@ public class ChunkImporter {
 		}
 	}
 
+	// shares the data of a source region file between the jobs of all target regions it overlaps.
+	// the data is kept until the last of these jobs has read it, but only for a limited amount of source regions at a time.
+	// when importing into the source world, a source region file that is overwritten while it's still needed
+	// is preserved in a temp file first, which is a hard link if the file system supports it.
+	private static final class SourceRegionCache {
+
+		private final Map<Point2i, Entry> entries = new HashMap<>();
+		private final File sourceDir;
+		// null if the source world is not the target world
+		private final Map<Point2i, File> tempFiles;
+		private final int maxCachedRegions;
+		private int cachedRegions;
+
+		private SourceRegionCache(File sourceDir, Map<Point2i, File> tempFiles, int maxCachedRegions) {
+			this.sourceDir = sourceDir;
+			this.tempFiles = tempFiles;
+			this.maxCachedRegions = maxCachedRegions;
+		}
+
+		// called once for each job that will read this source region
+		private void require(Point2i source) {
+			entries.computeIfAbsent(source, k -> new Entry()).remaining++;
+		}
+
+		private byte[] get(Point2i source, Function<File, byte[]> loader) {
+			File sourceFile = new File(sourceDir, FileHelper.createMCAFileName(source));
+			Entry entry;
+			synchronized (this) {
+				entry = entries.get(source);
+			}
+			if (entry == null) {
+				return loader.apply(sourceFile);
+			}
+			// the source file can't be overwritten while the entry is locked
+			synchronized (entry) {
+				entry.remaining--;
+				byte[] data = entry.data;
+				if (data == null) {
+					data = loader.apply(entry.tempFile == null ? sourceFile : entry.tempFile);
+					if (data != null && entry.remaining > 0 && reserve()) {
+						entry.data = data;
+					}
+				}
+				if (entry.remaining <= 0) {
+					release(source, entry);
+				}
+				return data;
+			}
+		}
+
+		// called by jobs that don't need to read their source regions
+		private void release(Set<Point2i> sources) {
+			for (Point2i source : sources) {
+				Entry entry;
+				synchronized (this) {
+					entry = entries.get(source);
+				}
+				if (entry != null) {
+					synchronized (entry) {
+						if (--entry.remaining <= 0) {
+							release(source, entry);
+						}
+					}
+				}
+			}
+		}
+
+		// overwrites the file of this target region. if the file is also a source file that is still needed,
+		// it is preserved in a temp file first, unless its data is cached anyway.
+		private void overwrite(Point2i target, FileAction action) throws IOException {
+			Entry entry = null;
+			if (tempFiles != null) {
+				synchronized (this) {
+					entry = entries.get(target);
+				}
+			}
+			if (entry == null) {
+				action.run();
+				return;
+			}
+			synchronized (entry) {
+				if (entry.remaining > 0 && entry.data == null && entry.tempFile == null) {
+					entry.tempFile = createTempFile(target);
+				}
+				action.run();
+			}
+		}
+
+		private File createTempFile(Point2i region) throws IOException {
+			Path source = new File(sourceDir, FileHelper.createMCAFileName(region)).toPath();
+			Timer t = new Timer();
+			File tempFile;
+			try {
+				// the hard link needs to be on the same file system, so it is created next to the source file
+				Path link = Files.createTempFile(sourceDir.toPath(), FileHelper.createMCAFileName(region), null);
+				Files.delete(link);
+				Files.createLink(link, source);
+				tempFile = link.toFile();
+			} catch (IOException | UnsupportedOperationException | SecurityException ex) {
+				Debug.dumpf("failed to create hard link of %s, copying it instead: %s", source, ex.getMessage());
+				tempFile = File.createTempFile(FileHelper.createMCAFileName(region), null, null);
+				Files.copy(source, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			tempFiles.put(region, tempFile);
+			Debug.dumpf("took %s to preserve %s in %s", t, source, tempFile);
+			return tempFile;
+		}
+
+		private synchronized boolean reserve() {
+			if (cachedRegions < maxCachedRegions) {
+				cachedRegions++;
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized void release(Point2i source, Entry entry) {
+			if (entry.data != null) {
+				entry.data = null;
+				cachedRegions--;
+			}
+			// the temp file is not needed anymore
+			if (entry.tempFile != null) {
+				if (entry.tempFile.delete()) {
+					tempFiles.remove(source);
+				} else {
+					Debug.errorf("failed to delete temp file %s", entry.tempFile);
+				}
+				entry.tempFile = null;
+			}
+			entries.remove(source);
+		}
+
+		private static class Entry {
+			private int remaining;
+			private byte[] data;
+			private File tempFile;
+		}
+
+		@FunctionalInterface
+		private interface FileAction {
+			void run() throws IOException;
+		}
+	}
+
 	private static void mapSourceRegionsByTargetRegion(Point2i source, Set<Point2i> targets, Map<Point2i, Set<Point2i>> map) {
 		for (Point2i target : targets) {
 			map.computeIfAbsent(target, key -> new HashSet<>(4));
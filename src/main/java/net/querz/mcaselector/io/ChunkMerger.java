@@ -0,0 +1,682 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.range.Range;
+import net.querz.mcaselector.version.ChunkDataProcessor;
+import net.querz.mcaselector.version.VersionController;
+import net.querz.nbt.io.NBTDeserializer;
+import net.querz.nbt.io.NBTSerializer;
+import net.querz.nbt.io.NamedTag;
+import net.querz.nbt.tag.CompoundTag;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// merges the sections in ranges of a compressed source chunk into a compressed destination chunk on their decompressed
+// nbt data, without building a CompoundTag tree of either chunk. the result is the same as the one of
+// ChunkDataProcessor.mergeChunks(): list elements are selected by the section they are in and copied as they are,
+// and the biomes of 1.15+ chunks are copied in slices of one section. only Level.Structures is decoded, because it is
+// merged by the bounding boxes of its children.
+final class ChunkMerger {
+
+	private static final byte TAG_END = 0;
+	private static final byte TAG_BYTE = 1;
+	private static final byte TAG_SHORT = 2;
+	private static final byte TAG_INT = 3;
+	private static final byte TAG_LONG = 4;
+	private static final byte TAG_FLOAT = 5;
+	private static final byte TAG_DOUBLE = 6;
+	private static final byte TAG_BYTE_ARRAY = 7;
+	private static final byte TAG_STRING = 8;
+	private static final byte TAG_LIST = 9;
+	private static final byte TAG_COMPOUND = 10;
+	private static final byte TAG_INT_ARRAY = 11;
+	private static final byte TAG_LONG_ARRAY = 12;
+
+	private static final int MAX_DEPTH = 512;
+
+	// the first DataVersion of 1.15, which stores biomes in 4x4x4 cells and entity UUIDs as int arrays
+	private static final int DATA_VERSION_1_15 = 2202;
+	private static final int BIOMES_PER_SECTION = 64;
+	private static final int SECTIONS = 16;
+
+	private static final byte[] LEVEL = bytes("Level");
+	private static final byte[] DATA_VERSION = bytes("DataVersion");
+	private static final byte[] Y = bytes("Y");
+	private static final byte[] LOWER_Y = bytes("y");
+	private static final byte[] POS = bytes("Pos");
+	private static final byte[] UUID = bytes("UUID");
+	private static final byte[] UUID_MOST = bytes("UUIDMost");
+	private static final byte[] UUID_LEAST = bytes("UUIDLeast");
+	private static final byte[] PASSENGERS = bytes("Passengers");
+
+	private final NBTData source, destination;
+	private final int dataVersion;
+	private final List<Range> ranges;
+	private final ChunkCodec.Buffer buffer;
+	private final DataOutputStream out;
+
+	private ChunkMerger(NBTData source, NBTData destination, int dataVersion, List<Range> ranges, ChunkCodec.Buffer buffer) {
+		this.source = source;
+		this.destination = destination;
+		this.dataVersion = dataVersion;
+		this.ranges = ranges;
+		this.buffer = buffer;
+		out = new DataOutputStream(buffer);
+	}
+
+	// destination is null if there is no destination chunk, in which case the source is merged into an empty chunk.
+	// returns the merged data compressed with compressionType, or null if the source chunk doesn't have a DataVersion.
+	static byte[] merge(byte[] source, CompressionType sourceCompressionType, Point2i sourceLocation,
+			byte[] destination, CompressionType compressionType, Point2i location, List<Range> ranges) throws IOException {
+
+		ChunkCodec codec = ChunkCodec.get();
+		ChunkCodec.Buffer sourceBuffer = codec.decompressToBuffer(sourceCompressionType, source, 0);
+		if (sourceBuffer == null) {
+			return null;
+		}
+		NBTData sourceData = new NBTData(sourceBuffer.getArray(), sourceBuffer.size());
+		int dataVersion = sourceData.getRootInt(DATA_VERSION);
+		if (dataVersion == 0) {
+			return null;
+		}
+
+		// like a destination chunk that can't be decoded, a corrupted destination chunk is replaced with an empty chunk
+		NBTData destinationData = null;
+		if (destination != null) {
+			try {
+				ChunkCodec.Buffer destinationBuffer = codec.decompressToBuffer(compressionType, destination, 1);
+				if (destinationBuffer != null) {
+					destinationData = new NBTData(destinationBuffer.getArray(), destinationBuffer.size());
+					destinationData.validate();
+				}
+			} catch (IOException ex) {
+				Debug.dumpException("failed to read chunk " + location + ", merging into an empty chunk", ex);
+				destinationData = null;
+			}
+		}
+		if (destinationData == null) {
+			destinationData = createEmptyChunk(location, dataVersion);
+		} else {
+			int destinationVersion = destinationData.getRootInt(DATA_VERSION);
+			if (dataVersion != destinationVersion) {
+				Debug.errorf("can't merge chunk at %s into chunk at %s because their DataVersion does not match (%d != %d)",
+						sourceLocation, location, dataVersion, destinationVersion);
+			}
+		}
+
+		ChunkCodec.Buffer buffer = codec.getOutputBuffer();
+		new ChunkMerger(sourceData, destinationData, dataVersion, ranges, buffer).mergeRoot();
+		return codec.compress(compressionType, buffer);
+	}
+
+	// the same chunk as MCAChunkData.newEmptyLevelMCAChunkData()
+	private static NBTData createEmptyChunk(Point2i location, int dataVersion) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(TAG_COMPOUND);
+		out.writeUTF("");
+		out.writeByte(TAG_COMPOUND);
+		out.writeUTF("Level");
+		out.writeByte(TAG_INT);
+		out.writeUTF("xPos");
+		out.writeInt(location.getX());
+		out.writeByte(TAG_INT);
+		out.writeUTF("zPos");
+		out.writeInt(location.getY());
+		out.writeByte(TAG_STRING);
+		out.writeUTF("Status");
+		out.writeUTF("full");
+		out.writeByte(TAG_END);
+		out.writeByte(TAG_INT);
+		out.writeUTF("DataVersion");
+		out.writeInt(dataVersion);
+		out.writeByte(TAG_END);
+		return new NBTData(bytes.toByteArray(), bytes.size());
+	}
+
+	// copies the root compound of the destination, merging its Level compound
+	private void mergeRoot() throws IOException {
+		int payload = destination.getPayload(0);
+		out.write(destination.data, 0, payload);
+
+		int sourceLevel = source.findTag(source.getPayload(0), LEVEL, TAG_COMPOUND);
+		boolean level = false;
+		int pos = payload;
+		byte type;
+		while ((type = destination.readByte(pos)) != TAG_END) {
+			int tagPayload = destination.getPayload(pos);
+			int end = destination.skipPayload(type, tagPayload, 1);
+			if (type == TAG_COMPOUND && destination.nameEquals(pos, LEVEL)) {
+				out.write(destination.data, pos, tagPayload - pos);
+				mergeLevel(sourceLevel == -1 ? -1 : source.getPayload(sourceLevel), tagPayload);
+				level = true;
+			} else {
+				out.write(destination.data, pos, end - pos);
+			}
+			pos = end;
+		}
+		if (!level) {
+			out.writeByte(TAG_COMPOUND);
+			out.writeUTF("Level");
+			mergeLevel(sourceLevel == -1 ? -1 : source.getPayload(sourceLevel), -1);
+		}
+		out.writeByte(TAG_END);
+	}
+
+	// sourceLevel and destinationLevel are the positions of the payload of the Level compounds, or -1 if there is none
+	private void mergeLevel(int sourceLevel, int destinationLevel) throws IOException {
+		Field[] fields = Field.values();
+
+		// the positions of the tags of all fields in the source, so the source Level is only read once
+		int[] sourceTags = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			sourceTags[i] = -1;
+		}
+		if (sourceLevel != -1) {
+			int pos = sourceLevel;
+			byte type;
+			while ((type = source.readByte(pos)) != TAG_END) {
+				Field field = Field.of(source, pos);
+				if (field != null) {
+					sourceTags[field.ordinal()] = pos;
+				}
+				pos = source.skipPayload(type, source.getPayload(pos), 2);
+			}
+		}
+
+		boolean[] merged = new boolean[fields.length];
+		if (destinationLevel != -1) {
+			int pos = destinationLevel;
+			byte type;
+			while ((type = destination.readByte(pos)) != TAG_END) {
+				int end = destination.skipPayload(type, destination.getPayload(pos), 2);
+				Field field = Field.of(destination, pos);
+				if (field == null) {
+					out.write(destination.data, pos, end - pos);
+				} else {
+					mergeField(field, sourceTags[field.ordinal()], pos, end);
+					merged[field.ordinal()] = true;
+				}
+				pos = end;
+			}
+		}
+
+		// fields that are missing in the destination are added, except for the biomes and structures
+		for (Field field : fields) {
+			if (!merged[field.ordinal()] && field.kind != Kind.BIOMES && field.kind != Kind.STRUCTURES) {
+				mergeField(field, sourceTags[field.ordinal()], -1, -1);
+			}
+		}
+		out.writeByte(TAG_END);
+	}
+
+	// destinationTag and destinationEnd are -1 if the field is missing in the destination
+	private void mergeField(Field field, int sourceTag, int destinationTag, int destinationEnd) throws IOException {
+		switch (field.kind) {
+		case COMPOUND_LIST:
+			writeHeader(TAG_LIST, field);
+			mergeCompoundList(field, getListPayload(source, sourceTag, TAG_COMPOUND), getListPayload(destination, destinationTag, TAG_COMPOUND));
+			break;
+		case SECTION_LIST:
+			mergeSectionList(field, getListPayload(source, sourceTag, TAG_LIST), destinationTag, destinationEnd);
+			break;
+		case BIOMES:
+			mergeBiomes(sourceTag, destinationTag, destinationEnd);
+			break;
+		case STRUCTURES:
+			mergeStructures(sourceTag, destinationTag, destinationEnd);
+			break;
+		}
+	}
+
+	// keeps the destination elements outside of the ranges and adds the source elements inside of the ranges
+	private void mergeCompoundList(Field field, int sourceList, int destinationList) throws IOException {
+		out.writeByte(TAG_COMPOUND);
+		int sizePosition = buffer.size();
+		out.writeInt(0);
+		int size = copyElements(destination, destinationList, field, false);
+		size += copyElements(source, sourceList, field, true);
+		buffer.writeInt(sizePosition, size);
+	}
+
+	private int copyElements(NBTData data, int list, Field field, boolean inRanges) throws IOException {
+		if (list == -1) {
+			return 0;
+		}
+		int size = data.readLength(list + 1);
+		int copied = 0;
+		int pos = list + 5;
+		for (int i = 0; i < size; i++) {
+			int end = data.skipPayload(TAG_COMPOUND, pos, 3);
+			if (isInRanges(field.getSection(data, pos)) == inRanges) {
+				if (field == Field.ENTITIES) {
+					copyEntity(data, pos, 3);
+				} else {
+					out.write(data.data, pos, end - pos);
+				}
+				copied++;
+			}
+			pos = end;
+		}
+		return copied;
+	}
+
+	// copies an entity and its passengers with new UUIDs, because minecraft doesn't like duplicates
+	private void copyEntity(NBTData data, int pos, int depth) throws IOException {
+		checkDepth(depth);
+		boolean intArrayUUID = dataVersion >= DATA_VERSION_1_15;
+		byte type;
+		while ((type = data.readByte(pos)) != TAG_END) {
+			int payload = data.getPayload(pos);
+			int end = data.skipPayload(type, payload, depth + 1);
+			out.write(data.data, pos, payload - pos);
+			if (intArrayUUID && type == TAG_INT_ARRAY && data.nameEquals(pos, UUID) && data.readLength(payload) == 4) {
+				out.writeInt(4);
+				for (int i = 0; i < 4; i++) {
+					out.writeInt(ChunkDataProcessor.random.nextInt());
+				}
+			} else if (!intArrayUUID && type == TAG_LONG && (data.nameEquals(pos, UUID_MOST) || data.nameEquals(pos, UUID_LEAST))) {
+				out.writeLong(ChunkDataProcessor.random.nextLong());
+			} else if (type == TAG_LIST && data.readByte(payload) == TAG_COMPOUND && data.nameEquals(pos, PASSENGERS)) {
+				out.write(data.data, payload, 5);
+				int size = data.readLength(payload + 1);
+				int element = payload + 5;
+				for (int i = 0; i < size; i++) {
+					int elementEnd = data.skipPayload(TAG_COMPOUND, element, depth + 2);
+					copyEntity(data, element, depth + 2);
+					element = elementEnd;
+				}
+			} else {
+				out.write(data.data, payload, end - payload);
+			}
+			pos = end;
+		}
+		out.writeByte(TAG_END);
+	}
+
+	// replaces the lists of the sections in the ranges, if the source and the destination have the same number of lists
+	private void mergeSectionList(Field field, int sourceList, int destinationTag, int destinationEnd) throws IOException {
+		int destinationList = getListPayload(destination, destinationTag, TAG_LIST);
+		int sourceSize = sourceList == -1 ? 0 : source.readLength(sourceList + 1);
+		if (destinationList == -1) {
+			// without lists in the destination, the lists of the source are used
+			writeHeader(TAG_LIST, field);
+			if (sourceList == -1) {
+				out.writeByte(TAG_LIST);
+				out.writeInt(0);
+			} else {
+				out.write(source.data, sourceList, source.skipPayload(TAG_LIST, sourceList, 2) - sourceList);
+			}
+			return;
+		}
+
+		int size = destination.readLength(destinationList + 1);
+		if (size != sourceSize) {
+			out.write(destination.data, destinationTag, destinationEnd - destinationTag);
+			return;
+		}
+		writeHeader(TAG_LIST, field);
+		out.writeByte(TAG_LIST);
+		out.writeInt(size);
+		int sourcePos = sourceList + 5;
+		int destinationPos = destinationList + 5;
+		for (int i = 0; i < size; i++) {
+			int sourceEnd = source.skipPayload(TAG_LIST, sourcePos, 3);
+			int destinationElementEnd = destination.skipPayload(TAG_LIST, destinationPos, 3);
+			if (isInRanges(i)) {
+				out.write(source.data, sourcePos, sourceEnd - sourcePos);
+			} else {
+				out.write(destination.data, destinationPos, destinationElementEnd - destinationPos);
+			}
+			sourcePos = sourceEnd;
+			destinationPos = destinationElementEnd;
+		}
+	}
+
+	// 1.15+ biomes are stored in 4x4x4 cells, so the biomes of a section are a slice of 64 ints
+	private void mergeBiomes(int sourceTag, int destinationTag, int destinationEnd) throws IOException {
+		int destinationPayload = destination.getPayload(destinationTag);
+		if (dataVersion < DATA_VERSION_1_15
+				|| destination.readByte(destinationTag) != TAG_INT_ARRAY
+				|| destination.readLength(destinationPayload) != SECTIONS * BIOMES_PER_SECTION) {
+			out.write(destination.data, destinationTag, destinationEnd - destinationTag);
+			return;
+		}
+
+		// if there are no source biomes, the biomes of the sections are set to -1
+		int sourcePayload = -1;
+		if (sourceTag != -1 && source.readByte(sourceTag) == TAG_INT_ARRAY) {
+			sourcePayload = source.getPayload(sourceTag);
+			if (source.readLength(sourcePayload) != SECTIONS * BIOMES_PER_SECTION) {
+				sourcePayload = -1;
+			}
+		}
+
+		out.write(destination.data, destinationTag, destinationPayload + 4 - destinationTag);
+		int sliceLength = BIOMES_PER_SECTION * 4;
+		for (int i = 0; i < SECTIONS; i++) {
+			int offset = 4 + i * sliceLength;
+			if (!isInRanges(i)) {
+				out.write(destination.data, destinationPayload + offset, sliceLength);
+			} else if (sourcePayload != -1) {
+				out.write(source.data, sourcePayload + offset, sliceLength);
+			} else {
+				for (int j = 0; j < BIOMES_PER_SECTION; j++) {
+					out.writeInt(-1);
+				}
+			}
+		}
+	}
+
+	// the structures are decoded, so they can be merged by ChunkDataProcessor.mergeStructures()
+	private void mergeStructures(int sourceTag, int destinationTag, int destinationEnd) throws IOException {
+		if (destination.readByte(destinationTag) != TAG_COMPOUND) {
+			out.write(destination.data, destinationTag, destinationEnd - destinationTag);
+			return;
+		}
+		CompoundTag destinationStructures = (CompoundTag) destination.decode(destinationTag, destinationEnd);
+		CompoundTag sourceStructures = null;
+		if (sourceTag != -1 && source.readByte(sourceTag) == TAG_COMPOUND) {
+			sourceStructures = (CompoundTag) source.decode(sourceTag, source.skipPayload(TAG_COMPOUND, source.getPayload(sourceTag), 2));
+		}
+
+		ChunkDataProcessor p = VersionController.getChunkDataProcessor(dataVersion);
+		p.mergeStructures(createChunk(sourceStructures), createChunk(destinationStructures), ranges);
+
+		new NBTSerializer(false).toStream(new NamedTag("Structures", destinationStructures), out);
+	}
+
+	private static CompoundTag createChunk(CompoundTag structures) {
+		CompoundTag root = new CompoundTag();
+		CompoundTag level = new CompoundTag();
+		if (structures != null) {
+			level.put("Structures", structures);
+		}
+		root.put("Level", level);
+		return root;
+	}
+
+	private void writeHeader(byte type, Field field) throws IOException {
+		out.writeByte(type);
+		out.writeShort(field.name.length);
+		out.write(field.name);
+	}
+
+	// returns the position of the payload of a list with this element type, or -1 if the tag is not such a list.
+	// empty lists can have any element type.
+	private static int getListPayload(NBTData data, int tag, byte elementType) throws IOException {
+		if (tag == -1 || data.readByte(tag) != TAG_LIST) {
+			return -1;
+		}
+		int payload = data.getPayload(tag);
+		if (data.readByte(payload) != elementType && data.readLength(payload + 1) != 0) {
+			return -1;
+		}
+		return payload;
+	}
+
+	private boolean isInRanges(int section) {
+		for (int i = 0; i < ranges.size(); i++) {
+			if (ranges.get(i).contains(section)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void checkDepth(int depth) throws IOException {
+		if (depth > MAX_DEPTH) {
+			throw new IOException("reached maximum depth of nbt data");
+		}
+	}
+
+	private static byte[] bytes(String name) {
+		// modified utf-8 only differs from utf-8 in characters that are not part of any name we are looking for
+		return name.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private enum Kind {
+		// a list of compounds with a y coordinate
+		COMPOUND_LIST,
+		// a list with one list per section
+		SECTION_LIST,
+		BIOMES,
+		STRUCTURES
+	}
+
+	// the tags of Level that are merged
+	private enum Field {
+		SECTIONS("Sections", Kind.COMPOUND_LIST),
+		ENTITIES("Entities", Kind.COMPOUND_LIST),
+		TILE_ENTITIES("TileEntities", Kind.COMPOUND_LIST),
+		TILE_TICKS("TileTicks", Kind.COMPOUND_LIST),
+		LIQUID_TICKS("LiquidTicks", Kind.COMPOUND_LIST),
+		LIGHTS("Lights", Kind.SECTION_LIST),
+		LIQUIDS_TO_BE_TICKED("LiquidsToBeTicked", Kind.SECTION_LIST),
+		TO_BE_TICKED("ToBeTicked", Kind.SECTION_LIST),
+		POST_PROCESSING("PostProcessing", Kind.SECTION_LIST),
+		BIOMES("Biomes", Kind.BIOMES),
+		STRUCTURES("Structures", Kind.STRUCTURES);
+
+		private final byte[] name;
+		private final Kind kind;
+
+		Field(String name, Kind kind) {
+			this.name = bytes(name);
+			this.kind = kind;
+		}
+
+		static Field of(NBTData data, int tag) throws IOException {
+			for (Field field : values()) {
+				if (data.nameEquals(tag, field.name)) {
+					return field;
+				}
+			}
+			return null;
+		}
+
+		// the section the element of a list of this field at this position is in, read like ChunkDataProcessor.mergeChunks()
+		int getSection(NBTData data, int element) throws IOException {
+			switch (this) {
+			case SECTIONS:
+				return data.getByte(element, Y);
+			case ENTITIES:
+				int pos = data.findTag(element, POS, TAG_LIST);
+				if (pos == -1) {
+					throw new IOException("entity without position");
+				}
+				int payload = data.getPayload(pos);
+				if (data.readByte(payload) != TAG_DOUBLE || data.readLength(payload + 1) < 2) {
+					throw new IOException("invalid entity position");
+				}
+				return (int) Double.longBitsToDouble(data.readLong(payload + 5 + 8)) >> 4;
+			default:
+				return data.getInt(element, LOWER_Y) >> 4;
+			}
+		}
+	}
+
+	// decompressed nbt data, read at absolute positions.
+	// a tag starts with its type, followed by its name and its payload.
+	private static final class NBTData {
+
+		private final byte[] data;
+		private final int size;
+
+		private NBTData(byte[] data, int size) {
+			this.data = data;
+			this.size = size;
+		}
+
+		// checks that the data is a compound that can be read completely
+		void validate() throws IOException {
+			if (readByte(0) != TAG_COMPOUND) {
+				throw new IOException("tag is not of type CompoundTag");
+			}
+			skipPayload(TAG_COMPOUND, getPayload(0), 1);
+		}
+
+		int getRootInt(byte[] name) throws IOException {
+			if (readByte(0) != TAG_COMPOUND) {
+				throw new IOException("tag is not of type CompoundTag");
+			}
+			int tag = findTag(getPayload(0), name, TAG_INT);
+			return tag == -1 ? 0 : readInt(getPayload(tag));
+		}
+
+		// returns the value of a byte in the compound at this position, or 0 if there is none
+		byte getByte(int compound, byte[] name) throws IOException {
+			int tag = findTag(compound, name, TAG_BYTE);
+			return tag == -1 ? 0 : readByte(getPayload(tag));
+		}
+
+		int getInt(int compound, byte[] name) throws IOException {
+			int tag = findTag(compound, name, TAG_INT);
+			return tag == -1 ? 0 : readInt(getPayload(tag));
+		}
+
+		// returns the position of the tag with this name and type in the compound at this position, or -1 if there is none
+		int findTag(int compound, byte[] name, byte type) throws IOException {
+			int pos = compound;
+			byte t;
+			while ((t = readByte(pos)) != TAG_END) {
+				if (nameEquals(pos, name)) {
+					if (t != type) {
+						throw new IOException("unexpected type " + t + " of " + new String(name, StandardCharsets.UTF_8));
+					}
+					return pos;
+				}
+				pos = skipPayload(t, getPayload(pos), 1);
+			}
+			return -1;
+		}
+
+		boolean nameEquals(int tag, byte[] name) throws IOException {
+			if (readUnsignedShort(tag + 1) != name.length) {
+				return false;
+			}
+			require(tag + 3, name.length);
+			for (int i = 0; i < name.length; i++) {
+				if (data[tag + 3 + i] != name[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		int getPayload(int tag) throws IOException {
+			return tag + 3 + readUnsignedShort(tag + 1);
+		}
+
+		// returns the position after the payload
+		int skipPayload(byte type, int pos, int depth) throws IOException {
+			switch (type) {
+			case TAG_BYTE:
+				return skip(pos, 1);
+			case TAG_SHORT:
+				return skip(pos, 2);
+			case TAG_INT:
+			case TAG_FLOAT:
+				return skip(pos, 4);
+			case TAG_LONG:
+			case TAG_DOUBLE:
+				return skip(pos, 8);
+			case TAG_BYTE_ARRAY:
+				return skip(pos + 4, readLength(pos));
+			case TAG_STRING:
+				return skip(pos + 2, readUnsignedShort(pos));
+			case TAG_INT_ARRAY:
+				return skip(pos + 4, (long) readLength(pos) * 4);
+			case TAG_LONG_ARRAY:
+				return skip(pos + 4, (long) readLength(pos) * 8);
+			case TAG_LIST:
+				return skipList(pos, depth);
+			case TAG_COMPOUND:
+				checkDepth(depth);
+				byte t;
+				while ((t = readByte(pos)) != TAG_END) {
+					pos = skipPayload(t, getPayload(pos), depth + 1);
+				}
+				return pos + 1;
+			default:
+				throw new IOException("invalid tag type " + type);
+			}
+		}
+
+		private int skipList(int pos, int depth) throws IOException {
+			checkDepth(depth);
+			byte type = readByte(pos);
+			int length = readLength(pos + 1);
+			pos += 5;
+			switch (type) {
+			case TAG_END:
+				return pos;
+			case TAG_BYTE:
+				return skip(pos, length);
+			case TAG_SHORT:
+				return skip(pos, (long) length * 2);
+			case TAG_INT:
+			case TAG_FLOAT:
+				return skip(pos, (long) length * 4);
+			case TAG_LONG:
+			case TAG_DOUBLE:
+				return skip(pos, (long) length * 8);
+			default:
+				for (int i = 0; i < length; i++) {
+					pos = skipPayload(type, pos, depth + 1);
+				}
+				return pos;
+			}
+		}
+
+		// decodes the tag at this position
+		Object decode(int tag, int end) throws IOException {
+			return new NBTDeserializer(false).fromStream(new ByteArrayInputStream(data, tag, end - tag)).getTag();
+		}
+
+		private int skip(int pos, long length) throws IOException {
+			require(pos, length);
+			return pos + (int) length;
+		}
+
+		private void require(int pos, long length) throws IOException {
+			if (pos < 0 || pos + length > size) {
+				throw new EOFException("unexpected end of nbt data");
+			}
+		}
+
+		byte readByte(int pos) throws IOException {
+			require(pos, 1);
+			return data[pos];
+		}
+
+		int readUnsignedShort(int pos) throws IOException {
+			require(pos, 2);
+			return (data[pos] & 0xFF) << 8 | data[pos + 1] & 0xFF;
+		}
+
+		int readInt(int pos) throws IOException {
+			require(pos, 4);
+			return (data[pos] & 0xFF) << 24 | (data[pos + 1] & 0xFF) << 16 | (data[pos + 2] & 0xFF) << 8 | data[pos + 3] & 0xFF;
+		}
+
+		long readLong(int pos) throws IOException {
+			return (long) readInt(pos) << 32 | readInt(pos + 4) & 0xFFFFFFFFL;
+		}
+
+		// reads the length of an array or a list
+		int readLength(int pos) throws IOException {
+			int length = readInt(pos);
+			if (length < 0) {
+				throw new IOException("invalid length " + length);
+			}
+			return length;
+		}
+	}
+}
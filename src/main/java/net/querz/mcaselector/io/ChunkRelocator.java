@@ -0,0 +1,501 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.point.Point2i;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// relocates compressed chunk data by copying the decompressed nbt data into the buffer that is compressed again
+// and patching the coordinates that are changed by MCAChunkData.relocate() on the way, without building a CompoundTag tree.
+// the coordinates are found by the name of a tag and the context it appears in, because an entity or tile entity id
+// can appear after the tags that depend on it.
+final class ChunkRelocator {
+
+	private static final byte TAG_END = 0;
+	private static final byte TAG_BYTE = 1;
+	private static final byte TAG_SHORT = 2;
+	private static final byte TAG_INT = 3;
+	private static final byte TAG_LONG = 4;
+	private static final byte TAG_FLOAT = 5;
+	private static final byte TAG_DOUBLE = 6;
+	private static final byte TAG_BYTE_ARRAY = 7;
+	private static final byte TAG_STRING = 8;
+	private static final byte TAG_LIST = 9;
+	private static final byte TAG_COMPOUND = 10;
+	private static final byte TAG_INT_ARRAY = 11;
+	private static final byte TAG_LONG_ARRAY = 12;
+
+	private static final int MAX_DEPTH = 512;
+
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final int blockX, blockZ;
+	private final int chunkX, chunkZ;
+	private final byte[] buffer = new byte[8192];
+
+	private ChunkRelocator(DataInputStream in, DataOutputStream out, Point2i offset) {
+		this.in = in;
+		this.out = out;
+		blockX = offset.getX();
+		blockZ = offset.getY();
+		Point2i chunkOffset = offset.blockToChunk();
+		chunkX = chunkOffset.getX();
+		chunkZ = chunkOffset.getY();
+	}
+
+	// offset is in blocks.
+	// returns the relocated data compressed with the same compression type, or null if the data is not a chunk.
+	static byte[] relocate(byte[] rawData, CompressionType compressionType, Point2i offset) throws IOException {
+		ChunkCodec codec = ChunkCodec.get();
+		DataInputStream in = codec.decompress(compressionType, rawData, 0, rawData.length);
+		if (in == null) {
+			return null;
+		}
+		ChunkCodec.Buffer buffer = codec.getOutputBuffer();
+		if (!new ChunkRelocator(in, new DataOutputStream(buffer), offset).relocateRoot()) {
+			return null;
+		}
+		return codec.compress(compressionType, buffer);
+	}
+
+	private boolean relocateRoot() throws IOException {
+		byte type = in.readByte();
+		if (type != TAG_COMPOUND) {
+			return false;
+		}
+		out.writeByte(type);
+		copyName();
+		return copyCompound(Context.ROOT, 0);
+	}
+
+	// returns whether the compound contained a Level tag, which only matters for the root compound
+	private boolean copyCompound(Context context, int depth) throws IOException {
+		checkDepth(depth);
+		boolean containsLevel = false;
+		boolean xPos = false, zPos = false;
+		byte type;
+		while ((type = in.readByte()) != TAG_END) {
+			out.writeByte(type);
+			if (context == Context.NONE) {
+				copyBytes(in.readUnsignedShort(), true);
+				copyPayload(type, Context.NONE, Patch.NONE, depth + 1);
+				continue;
+			}
+			String name = copyName();
+			Patch patch = context.getPatch(name);
+			if (context == Context.ROOT && "Level".equals(name) && type == TAG_COMPOUND) {
+				containsLevel = true;
+			} else if (context == Context.LEVEL) {
+				xPos |= patch == Patch.CHUNK_X;
+				zPos |= patch == Patch.CHUNK_Z;
+			}
+			copyPayload(type, context.getChild(name), patch, depth + 1);
+		}
+
+		// relocate() always sets the position of the chunk
+		if (context == Context.LEVEL) {
+			if (!xPos) {
+				writeInt("xPos", chunkX);
+			}
+			if (!zPos) {
+				writeInt("zPos", chunkZ);
+			}
+		}
+
+		out.writeByte(TAG_END);
+		return containsLevel;
+	}
+
+	private void copyPayload(byte type, Context context, Patch patch, int depth) throws IOException {
+		switch (type) {
+		case TAG_BYTE:
+			out.writeByte(in.readByte());
+			break;
+		case TAG_SHORT:
+			out.writeShort(in.readShort());
+			break;
+		case TAG_INT:
+			out.writeInt(patch.applyToInt(in.readInt(), this));
+			break;
+		case TAG_LONG:
+		case TAG_DOUBLE:
+			copyBytes(8);
+			break;
+		case TAG_FLOAT:
+			copyBytes(4);
+			break;
+		case TAG_BYTE_ARRAY:
+			copyBytes(copyLength(1));
+			break;
+		case TAG_STRING:
+			copyBytes(in.readUnsignedShort(), true);
+			break;
+		case TAG_LIST:
+			copyList(context, patch, depth);
+			break;
+		case TAG_COMPOUND:
+			copyCompound(context, depth);
+			break;
+		case TAG_INT_ARRAY:
+			copyIntArray(patch);
+			break;
+		case TAG_LONG_ARRAY:
+			copyLongArray(patch);
+			break;
+		default:
+			throw new IOException("invalid tag type " + type);
+		}
+	}
+
+	private void copyList(Context context, Patch patch, int depth) throws IOException {
+		checkDepth(depth);
+		byte type = in.readByte();
+		int size = in.readInt();
+		out.writeByte(type);
+		out.writeInt(size);
+		if (patch == Patch.POS && size == 3 && (type == TAG_DOUBLE || type == TAG_INT)) {
+			for (int i = 0; i < 3; i++) {
+				int offset = i == 0 ? blockX : i == 2 ? blockZ : 0;
+				if (type == TAG_DOUBLE) {
+					out.writeDouble(in.readDouble() + offset);
+				} else {
+					out.writeInt(in.readInt() + offset);
+				}
+			}
+			return;
+		}
+		// patches of lists are applied to each element, e.g. a list of bounding boxes
+		for (int i = 0; i < size; i++) {
+			copyPayload(type, context, type == TAG_INT_ARRAY ? patch : Patch.NONE, depth + 1);
+		}
+	}
+
+	private void copyIntArray(Patch patch) throws IOException {
+		int length = copyLength(4);
+		if (patch == Patch.NONE || !patch.appliesToIntArray(length)) {
+			copyBytes(length * 4);
+			return;
+		}
+		for (int i = 0; i < length; i++) {
+			out.writeInt(in.readInt() + patch.getIntArrayOffset(i, this));
+		}
+	}
+
+	private void copyLongArray(Patch patch) throws IOException {
+		int length = copyLength(8);
+		if (patch != Patch.CHUNK_POSITIONS) {
+			copyBytes(length * 8);
+			return;
+		}
+		for (int i = 0; i < length; i++) {
+			long reference = in.readLong();
+			int x = (int) reference;
+			int z = (int) (reference >> 32);
+			out.writeLong(((long) (z + chunkZ) & 0xFFFFFFFFL) << 32 | (long) (x + chunkX) & 0xFFFFFFFFL);
+		}
+	}
+
+	// copies the name of a tag and returns it
+	private String copyName() throws IOException {
+		int length = in.readUnsignedShort();
+		out.writeShort(length);
+		byte[] name = length <= buffer.length ? buffer : new byte[length];
+		in.readFully(name, 0, length);
+		out.write(name, 0, length);
+		// modified utf-8 only differs from utf-8 in characters that are not part of any name we are looking for
+		return new String(name, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private int copyLength(int elementSize) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || (long) length * elementSize > Integer.MAX_VALUE) {
+			throw new IOException("invalid array length " + length);
+		}
+		out.writeInt(length);
+		return length;
+	}
+
+	private void copyBytes(int length) throws IOException {
+		copyBytes(length, false);
+	}
+
+	private void copyBytes(int length, boolean writeLength) throws IOException {
+		if (writeLength) {
+			out.writeShort(length);
+		}
+		while (length > 0) {
+			int read = Math.min(length, buffer.length);
+			in.readFully(buffer, 0, read);
+			out.write(buffer, 0, read);
+			length -= read;
+		}
+	}
+
+	private void writeInt(String name, int value) throws IOException {
+		out.writeByte(TAG_INT);
+		out.writeUTF(name);
+		out.writeInt(value);
+	}
+
+	private static void checkDepth(int depth) throws IOException {
+		if (depth > MAX_DEPTH) {
+			throw new IOException("reached maximum depth of nbt data");
+		}
+	}
+
+	// how a value is changed when the chunk is relocated
+	private enum Patch {
+		NONE, BLOCK_X, BLOCK_Z, CHUNK_X, CHUNK_Z,
+		// a position as a list or an array of 3 values: x, y, z
+		POS,
+		// a bounding box as an array of 6 values: minX, minY, minZ, maxX, maxY, maxZ
+		BB,
+		// a long array of chunk positions
+		CHUNK_POSITIONS;
+
+		int applyToInt(int value, ChunkRelocator r) {
+			switch (this) {
+			case BLOCK_X:
+				return value + r.blockX;
+			case BLOCK_Z:
+				return value + r.blockZ;
+			case CHUNK_X:
+				return value + r.chunkX;
+			case CHUNK_Z:
+				return value + r.chunkZ;
+			default:
+				return value;
+			}
+		}
+
+		boolean appliesToIntArray(int length) {
+			return this == POS && length == 3 || this == BB && length == 6;
+		}
+
+		int getIntArrayOffset(int index, ChunkRelocator r) {
+			switch (index % 3) {
+			case 0:
+				return r.blockX;
+			case 2:
+				return r.blockZ;
+			default:
+				return 0;
+			}
+		}
+	}
+
+	// the kind of compound a tag appears in. lists pass their context on to their elements.
+	private enum Context {
+		NONE, ROOT, LEVEL, TICK, STRUCTURES, REFERENCES, STARTS, START, PROCESSED_CHUNK, CHILD, JUNCTION,
+		ENTITY, TILE_ENTITY, ITEM, ITEM_TAG, BLOCK_ENTITY_TAG, BEE, SPAWN_POTENTIAL, BRAIN, MEMORIES, MEMORY,
+		// a compound with an X and a Z block coordinate
+		POSITION;
+
+		Context getChild(String name) {
+			switch (this) {
+			case ROOT:
+				return "Level".equals(name) ? LEVEL : NONE;
+			case LEVEL:
+				switch (name) {
+				case "Entities":
+					return ENTITY;
+				case "TileEntities":
+					return TILE_ENTITY;
+				case "TileTicks":
+				case "LiquidTicks":
+					return TICK;
+				case "Structures":
+					return STRUCTURES;
+				}
+				return NONE;
+			case STRUCTURES:
+				switch (name) {
+				case "References":
+					return REFERENCES;
+				case "Starts":
+					return STARTS;
+				}
+				return NONE;
+			case STARTS:
+				return START;
+			case START:
+				switch (name) {
+				case "Processed":
+					return PROCESSED_CHUNK;
+				case "Children":
+					return CHILD;
+				}
+				return NONE;
+			case CHILD:
+				return "junctions".equals(name) ? JUNCTION : NONE;
+			case ENTITY:
+				switch (name) {
+				case "Leash":
+				case "WanderTarget":
+				case "Owner":
+				case "Target":
+				case "BeamTarget":
+				case "PatrolTarget":
+					return POSITION;
+				case "Brain":
+					return BRAIN;
+				case "TileEntityData":
+					return TILE_ENTITY;
+				case "Passengers":
+					return ENTITY;
+				case "Item":
+				case "Items":
+				case "HandItems":
+				case "ArmorItems":
+					return ITEM;
+				}
+				return NONE;
+			case TILE_ENTITY:
+				switch (name) {
+				case "FlowerPos":
+				case "ExitPortal":
+					return POSITION;
+				case "Bees":
+					return BEE;
+				case "SpawnPotentials":
+					return SPAWN_POTENTIAL;
+				case "RecordItem":
+				case "Book":
+				case "Items":
+					return ITEM;
+				}
+				return NONE;
+			case BEE:
+				return "EntityData".equals(name) ? ENTITY : NONE;
+			case SPAWN_POTENTIAL:
+				return "Entity".equals(name) ? ENTITY : NONE;
+			case ITEM:
+				return "tag".equals(name) ? ITEM_TAG : NONE;
+			case ITEM_TAG:
+				switch (name) {
+				case "LodestonePos":
+					return POSITION;
+				case "BlockEntityTag":
+					return BLOCK_ENTITY_TAG;
+				}
+				return NONE;
+			case BLOCK_ENTITY_TAG:
+				return "Items".equals(name) ? ITEM : NONE;
+			case BRAIN:
+				return "memories".equals(name) ? MEMORIES : NONE;
+			case MEMORIES:
+				switch (name) {
+				case "minecraft:meeting_point":
+				case "minecraft:home":
+				case "minecraft:job_site":
+					return MEMORY;
+				}
+				return NONE;
+			default:
+				return NONE;
+			}
+		}
+
+		Patch getPatch(String name) {
+			switch (this) {
+			case LEVEL:
+				switch (name) {
+				case "xPos":
+					return Patch.CHUNK_X;
+				case "zPos":
+					return Patch.CHUNK_Z;
+				}
+				return Patch.NONE;
+			case TICK:
+			case TILE_ENTITY:
+				switch (name) {
+				case "x":
+					return Patch.BLOCK_X;
+				case "z":
+					return Patch.BLOCK_Z;
+				}
+				return Patch.NONE;
+			case REFERENCES:
+				return Patch.CHUNK_POSITIONS;
+			case START:
+				switch (name) {
+				case "ChunkX":
+					return Patch.CHUNK_X;
+				case "ChunkZ":
+					return Patch.CHUNK_Z;
+				case "BB":
+					return Patch.BB;
+				}
+				return Patch.NONE;
+			case PROCESSED_CHUNK:
+				switch (name) {
+				case "X":
+					return Patch.CHUNK_X;
+				case "Z":
+					return Patch.CHUNK_Z;
+				}
+				return Patch.NONE;
+			case CHILD:
+				switch (name) {
+				case "TPX":
+				case "PosX":
+					return Patch.BLOCK_X;
+				case "TPZ":
+				case "PosZ":
+					return Patch.BLOCK_Z;
+				case "BB":
+				case "Entrances":
+					return Patch.BB;
+				}
+				return Patch.NONE;
+			case JUNCTION:
+				switch (name) {
+				case "source_x":
+					return Patch.BLOCK_X;
+				case "source_z":
+					return Patch.BLOCK_Z;
+				}
+				return Patch.NONE;
+			case ENTITY:
+				switch (name) {
+				case "Pos":
+					return Patch.POS;
+				case "xTile":
+				case "SleepingX":
+				case "TreasurePosX":
+				case "AX":
+				case "APX":
+				case "HomePosX":
+				case "TravelPosX":
+				case "BoundX":
+				case "TileX":
+					return Patch.BLOCK_X;
+				case "zTile":
+				case "SleepingZ":
+				case "TreasurePosZ":
+				case "AZ":
+				case "APZ":
+				case "HomePosZ":
+				case "TravelPosZ":
+				case "BoundZ":
+				case "TileZ":
+					return Patch.BLOCK_Z;
+				}
+				return Patch.NONE;
+			case MEMORY:
+				return "pos".equals(name) ? Patch.POS : Patch.NONE;
+			case POSITION:
+				switch (name) {
+				case "X":
+					return Patch.BLOCK_X;
+				case "Z":
+					return Patch.BLOCK_Z;
+				}
+				return Patch.NONE;
+			default:
+				return Patch.NONE;
+			}
+		}
+	}
+}
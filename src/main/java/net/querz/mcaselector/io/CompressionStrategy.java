@@ -0,0 +1,30 @@
+package net.querz.mcaselector.io;
+
+import java.util.zip.Deflater;
+
+// the deflate strategy used to compress chunk data
+public enum CompressionStrategy {
+
+	DEFAULT(Deflater.DEFAULT_STRATEGY),
+	FILTERED(Deflater.FILTERED),
+	HUFFMAN_ONLY(Deflater.HUFFMAN_ONLY);
+
+	private final int strategy;
+
+	CompressionStrategy(int strategy) {
+		this.strategy = strategy;
+	}
+
+	public static CompressionStrategy fromString(String s) {
+		for (CompressionStrategy c : CompressionStrategy.values()) {
+			if (c.name().equalsIgnoreCase(s)) {
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("Invalid compression strategy " + s);
+	}
+
+	public int getStrategy() {
+		return strategy;
+	}
+}
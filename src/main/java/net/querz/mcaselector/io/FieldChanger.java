@@ -97,7 +97,8 @@ public class FieldChanger {
 			//load MCAFile
 			Timer t = new Timer();
 			try {
-				MCAFile mca = MCAFile.readAll(getFile(), new ByteArrayPointer(getData()));
+				// only the chunks that are changed are decoded and compressed again
+				MCAFile mca = MCAFile.readAllRaw(getFile(), new ByteArrayPointer(getData()));
 				mca.applyFieldChanges(fields, force, selection);
 				Debug.dumpf("took %s to apply field changes to %s", t, getFile().getName());
 				MCAFilePipe.executeSaveData(new MCAFieldChangeSaveJob(getFile(), mca, progressChannel));
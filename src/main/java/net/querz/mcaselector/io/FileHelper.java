@@ -96,6 +96,18 @@ public final class FileHelper {
 		return new File(cacheDir, zoomLevel + "/" + createPNGFileName(r));
 	}
 
+	public static File createOverviewPNGFilePath(Point2i o) {
+		return new File(Config.getOverviewCacheDir(), createOverviewPNGFileName(o));
+	}
+
+	public static File createIndexFilePath(Point2i r) {
+		return new File(Config.getIndexCacheDir(), createIndexFileName(r));
+	}
+
+	public static File createSummaryFilePath(Point2i r) {
+		return new File(Config.getIndexCacheDir(), createSummaryFileName(r));
+	}
+
 	public static String createMCAFileName(Point2i r) {
 		return String.format("r.%d.%d.mca", r.getX(), r.getY());
 	}
@@ -104,6 +116,18 @@ public final class FileHelper {
 		return String.format("r.%d.%d.png", r.getX(), r.getY());
 	}
 
+	public static String createOverviewPNGFileName(Point2i o) {
+		return String.format("o.%d.%d.png", o.getX(), o.getY());
+	}
+
+	public static String createIndexFileName(Point2i r) {
+		return String.format("r.%d.%d.idx", r.getX(), r.getY());
+	}
+
+	public static String createSummaryFileName(Point2i r) {
+		return String.format("r.%d.%d.sum", r.getX(), r.getY());
+	}
+
 	public static Attributes getManifestAttributes() throws IOException {
 		String className = FileHelper.class.getSimpleName() + ".class";
 		String classPath = FileHelper.class.getResource(className).toString();
@@ -3,6 +3,7 @@ package net.querz.mcaselector.io;
 import net.querz.mcaselector.changer.Field;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.range.Range;
 import net.querz.nbt.io.NBTDeserializer;
 import net.querz.nbt.io.NBTSerializer;
 import net.querz.nbt.io.NamedTag;
@@ -16,10 +17,6 @@ import net.querz.nbt.tag.Tag;
 import java.io.*;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.InflaterInputStream;
 import static net.querz.mcaselector.validation.ValidationHelper.*;
 
 public class MCAChunkData {
@@ -30,6 +27,11 @@ public class MCAChunkData {
 	private int length; //length without padding
 	private CompressionType compressionType;
 	private CompoundTag data;
+	// the compressed chunk data as it was read from the region file.
+	// it is only decoded when the data of the chunk is accessed and written back as it is unless the chunk is dirty.
+	private byte[] rawData;
+	// whether the decoded data has been changed, so that rawData is outdated
+	private boolean dirty;
 
 	private final Point2i absoluteLocation;
 
@@ -66,8 +68,30 @@ public class MCAChunkData {
 		return mcaChunkData;
 	}
 
+	// an empty chunk that raw chunks can be merged into with mergeRaw()
+	static MCAChunkData newEmptyRawMCAChunkData(Point2i absoluteLocation) {
+		MCAChunkData mcaChunkData = new MCAChunkData(absoluteLocation, 0, 0, (byte) 1);
+		mcaChunkData.compressionType = CompressionType.ZLIB;
+		return mcaChunkData;
+	}
+
 	public boolean isEmpty() {
-		return offset == 0 && timestamp == 0 && sectors == 0 || data == null;
+		return offset == 0 && timestamp == 0 && sectors == 0 || data == null && rawData == null;
+	}
+
+	// whether the data of this chunk is only available in its compressed form
+	public boolean isRaw() {
+		return rawData != null && data == null;
+	}
+
+	// whether this chunk has to be compressed again when it is saved
+	public boolean isDirty() {
+		return dirty || rawData == null && data != null;
+	}
+
+	// marks the decoded data of this chunk as changed, e.g. after modifying the tag returned by getData()
+	public void markDirty() {
+		dirty = true;
 	}
 
 	public void readHeader(ByteArrayPointer ptr) {
@@ -85,16 +109,9 @@ public class MCAChunkData {
 	public void loadData(ByteArrayPointer ptr) throws Exception {
 		//offset + length of length (4 bytes) + length of compression type (1 byte)
 		ptr.seek(offset + 5);
-		DataInputStream nbtIn = null;
-
-		switch (compressionType) {
-		case GZIP:
-			nbtIn = new DataInputStream(new BufferedInputStream(new GZIPInputStream(ptr)));
-			break;
-		case ZLIB:
-			nbtIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(ptr)));
-			break;
-		case NONE:
+		// length includes the compression type byte
+		DataInputStream nbtIn = ChunkCodec.get().decompress(compressionType, ptr, length - 1);
+		if (nbtIn == null) {
 			data = null;
 			return;
 		}
@@ -107,20 +124,46 @@ public class MCAChunkData {
 		}
 	}
 
+	// reads the compressed chunk data without decoding it
+	public void loadRawData(ByteArrayPointer ptr) throws IOException {
+		ptr.seek(offset + 5);
+		data = null;
+		dirty = false;
+		if (compressionType == CompressionType.NONE || length <= 1) {
+			rawData = null;
+			return;
+		}
+		// length includes the compression type byte
+		rawData = ptr.readBytes(length - 1);
+	}
+
+	// decodes the compressed chunk data, but keeps it until the decoded data is changed
+	private void decodeRawData() {
+		if (rawData == null || data != null) {
+			return;
+		}
+		try {
+			DataInputStream in = ChunkCodec.get().decompress(compressionType, rawData, 0, rawData.length);
+			if (in == null) {
+				return;
+			}
+			NamedTag tag = new NBTDeserializer(false).fromStream(in);
+			if (tag.getTag() instanceof CompoundTag) {
+				data = (CompoundTag) tag.getTag();
+			} else {
+				Debug.dumpf("invalid chunk data in chunk %s: tag is not of type CompoundTag", absoluteLocation);
+			}
+		} catch (IOException ex) {
+			Debug.dumpException("failed to decode chunk " + absoluteLocation, ex);
+		}
+	}
+
 	public void loadData(RandomAccessFile raf) throws IOException {
 		raf.seek(offset + 5);
-		DataInputStream nbtIn = null;
-
-		switch (compressionType) {
-			case GZIP:
-				nbtIn = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(raf.getFD()))));
-				break;
-			case ZLIB:
-				nbtIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(raf.getFD()))));
-				break;
-			case NONE:
-				data = null;
-				return;
+		DataInputStream nbtIn = ChunkCodec.get().decompress(compressionType, raf, length - 1);
+		if (nbtIn == null) {
+			data = null;
+			return;
 		}
 
 		NamedTag tag = new NBTDeserializer(false).fromStream(nbtIn);
@@ -135,27 +178,11 @@ public class MCAChunkData {
 	//saves to offset provided by raf, because it might be different when data changed
 	//returns the number of bytes that were written to the file
 	public int saveData(RandomAccessFile raf) throws Exception {
-		DataOutputStream nbtOut;
-
-		ByteArrayOutputStream baos;
-
-		switch (compressionType) {
-		case GZIP:
-			nbtOut = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(baos = new ByteArrayOutputStream()), sectors * MCAFile.SECTION_SIZE));
-			break;
-		case ZLIB:
-			nbtOut = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(baos = new ByteArrayOutputStream()), sectors * MCAFile.SECTION_SIZE));
-			break;
-		default:
+		byte[] rawData = getCompressedData();
+		if (rawData == null) {
 			return 0;
 		}
 
-		new NBTSerializer(false).toStream(new NamedTag(null, data), nbtOut);
-
-		nbtOut.close();
-
-		byte[] rawData = baos.toByteArray();
-
 		raf.writeInt(rawData.length + 1); // length includes the compression type byte
 		raf.writeByte(compressionType.getByte());
 		raf.write(rawData);
@@ -163,7 +190,46 @@ public class MCAChunkData {
 		return rawData.length + 5;
 	}
 
+	// compresses the data of this chunk, so that saving it only needs to write the compressed data.
+	// this allows compressing the chunks of a file in parallel before writing them.
+	// chunks that have not been changed since they were read keep their original compressed data.
+	public void compress() throws IOException {
+		if (data == null) {
+			return;
+		}
+		if (!isDirty()) {
+			data = null;
+			return;
+		}
+		byte[] compressed = compressData();
+		if (compressed != null) {
+			rawData = compressed;
+			data = null;
+			dirty = false;
+		}
+	}
+
+	// returns the compressed data of this chunk, compressing it if it has been changed
+	byte[] getCompressedData() throws IOException {
+		return isDirty() ? compressData() : rawData;
+	}
+
+	private byte[] compressData() throws IOException {
+		if (compressionType == CompressionType.NONE) {
+			return null;
+		}
+		ChunkCodec codec = ChunkCodec.get();
+		ChunkCodec.Buffer buffer = codec.getOutputBuffer();
+		new NBTSerializer(false).toStream(new NamedTag(null, data), buffer);
+		return codec.compress(compressionType, buffer);
+	}
+
 	public void changeData(List<Field<?>> fields, boolean force) {
+		decodeRawData();
+		if (data == null) {
+			return;
+		}
+		dirty = true;
 		for (Field<?> field : fields) {
 			try {
 				if (force) {
@@ -198,11 +264,14 @@ public class MCAChunkData {
 	}
 
 	public CompoundTag getData() {
+		decodeRawData();
 		return data;
 	}
 
 	public void setData(CompoundTag data) {
 		this.data = data;
+		rawData = null;
+		dirty = false;
 	}
 
 	public void setCompressionType(CompressionType compressionType) {
@@ -213,8 +282,39 @@ public class MCAChunkData {
 		return absoluteLocation;
 	}
 
+	// merges the sections in ranges of a raw source chunk into this chunk, which has to be raw or empty,
+	// without decoding either of them. returns false if the source chunk doesn't have a DataVersion.
+	boolean mergeRaw(MCAChunkData source, List<Range> ranges) throws IOException {
+		byte[] merged = ChunkMerger.merge(source.rawData, source.compressionType, source.absoluteLocation,
+				rawData, compressionType, absoluteLocation, ranges);
+		if (merged == null) {
+			return false;
+		}
+		rawData = merged;
+		data = null;
+		dirty = false;
+		return true;
+	}
+
 	// offset is in blocks
 	public boolean relocate(Point2i offset) {
+		// chunks that have not been decoded are relocated without decoding them
+		if (isRaw()) {
+			if (offset.getX() == 0 && offset.getY() == 0) {
+				return true;
+			}
+			try {
+				byte[] relocated = ChunkRelocator.relocate(rawData, compressionType, offset);
+				if (relocated != null) {
+					rawData = relocated;
+					return true;
+				}
+			} catch (IOException ex) {
+				Debug.dumpException("failed to relocate chunk " + absoluteLocation, ex);
+			}
+			return false;
+		}
+
 		if (data == null || !data.containsKey("Level")) {
 			return false;
 		}
@@ -224,6 +324,8 @@ public class MCAChunkData {
 			return true;
 		}
 
+		dirty = true;
+
 		// adjust or set chunk position
 		level.putInt("xPos", level.getInt("xPos") + offset.blockToChunk().getX());
 		level.putInt("zPos", level.getInt("zPos") + offset.blockToChunk().getY());
@@ -237,7 +339,7 @@ public class MCAChunkData {
 		}
 
 		// adjust tile entity positions
-		if (level.containsKey("TileEntities") && level.get("TileEntities").getID() == CompoundTag.ID) {
+		if (level.containsKey("TileEntities") && level.get("TileEntities").getID() != CompoundTag.ID) {
 			ListTag<CompoundTag> tileEntities = catchClassCastException(() -> level.getListTag("TileEntities").asCompoundTagList());
 			if (tileEntities != null) {
 				tileEntities.forEach(v -> applyOffsetToTileEntity(v, offset));
@@ -393,10 +495,6 @@ public class MCAChunkData {
 					CompoundTag exitPortal = catchClassCastException(() -> tileEntity.getCompoundTag("ExitPortal"));
 					applyIntOffsetIfRootPresent(exitPortal, "X", "Z", offset);
 					break;
-				case "minecraft:structure_block":
-					applyIntIfPresent(tileEntity, "posX", offset.getX());
-					applyIntIfPresent(tileEntity, "posX", offset.getY());
-					break;
 				case "minecraft:jukebox":
 					CompoundTag recordItem = catchClassCastException(() -> tileEntity.getCompoundTag("RecordItem"));
 					applyOffsetToItem(recordItem, offset);
@@ -1,15 +1,18 @@
 package net.querz.mcaselector.io;
 
 import net.querz.mcaselector.changer.Field;
-import net.querz.mcaselector.filter.Filter;
 import net.querz.mcaselector.filter.FilterData;
+import net.querz.mcaselector.filter.FilterPlan;
 import net.querz.mcaselector.range.Range;
 import net.querz.mcaselector.tiles.Tile;
 import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.point.LongHashSet;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.version.ChunkDataProcessor;
 import net.querz.mcaselector.version.VersionController;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 public class MCAFile {
@@ -26,6 +29,9 @@ public class MCAFile {
 	private final int[] timestamps;
 
 	private final MCAChunkData[] chunks;
+	// whether the chunk data has been read, otherwise only the header of the file
+	// and possibly the headers of the chunks have been read
+	private boolean chunkDataLoaded = false;
 
 	public MCAFile(File file) {
 		this.file = file.getAbsoluteFile();
@@ -50,51 +56,131 @@ public class MCAFile {
 
 	//returns whether there were any chunks written to file
 	public boolean saveAll(RandomAccessFile raf) throws Exception {
+		// chunks that were not changed since they were read keep their compressed data and are written as they are
+		compressChunks();
+
+		FileChannel channel = raf.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(TIMESTAMP_HEADER_LOCATION + SECTION_SIZE);
+		SectorWriter body = new SectorWriter(channel, 2 * SECTION_SIZE);
 		int globalOffset = 2;
-		int lastWritten = 0;
 
-		raf.seek(0);
 		for (int cx = 0; cx < Tile.SIZE_IN_CHUNKS; cx++) {
 			for (int cz = 0; cz < Tile.SIZE_IN_CHUNKS; cz++) {
 				int index = cz * Tile.SIZE_IN_CHUNKS + cx;
 
-				raf.seek(globalOffset * SECTION_SIZE);
 				MCAChunkData data = chunks[index];
 
 				if (data == null || data.isEmpty()) {
 					continue;
 				}
 
-				lastWritten = data.saveData(raf);
+				byte[] rawData = data.getCompressedData();
+				if (rawData == null) {
+					continue;
+				}
 
-				int sectors = (lastWritten >> 12) + (lastWritten % SECTION_SIZE == 0 ? 0 : 1);
+				body.writeInt(rawData.length + 1); // length includes the compression type byte
+				body.writeByte(data.getCompressionType().getByte());
+				body.write(rawData);
 
-				raf.seek(INDEX_HEADER_LOCATION + index * 4);
-				raf.writeByte(globalOffset >>> 16);
-				raf.writeByte(globalOffset >> 8 & 0xFF);
-				raf.writeByte(globalOffset & 0xFF);
-				raf.writeByte(sectors);
+				int written = rawData.length + 5;
+				int sectors = (written >> 12) + (written % SECTION_SIZE == 0 ? 0 : 1);
+				body.pad(sectors * SECTION_SIZE - written);
 
-				//write timestamp to tmp file
-				raf.seek(TIMESTAMP_HEADER_LOCATION + index * 4);
-				raf.writeInt(timestamps[index]);
+				header.position(INDEX_HEADER_LOCATION + index * 4);
+				header.put((byte) (globalOffset >>> 16));
+				header.put((byte) (globalOffset >> 8 & 0xFF));
+				header.put((byte) (globalOffset & 0xFF));
+				header.put((byte) sectors);
+
+				header.position(TIMESTAMP_HEADER_LOCATION + index * 4);
+				header.putInt(timestamps[index]);
 
 				globalOffset += sectors;
 			}
 		}
 
-		//padding
-		if (lastWritten % SECTION_SIZE != 0) {
-			raf.seek(globalOffset * SECTION_SIZE - 1);
-			raf.write(0);
+		if (globalOffset == 2) {
+			return false;
 		}
 
-		return globalOffset != 2;
+		body.flush();
+		header.clear();
+		SectorWriter.writeFully(channel, header, 0);
+		channel.truncate((long) globalOffset * SECTION_SIZE);
+		return true;
+	}
+
+	// buffers sequential writes to a file channel, so that the data of all chunks is written with a few large writes
+	private static final class SectorWriter {
+
+		private static final int BUFFER_SIZE = 1 << 20;
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position;
+
+		private SectorWriter(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		private void writeInt(int i) throws IOException {
+			ensureRemaining(4);
+			buffer.putInt(i);
+		}
+
+		private void writeByte(byte b) throws IOException {
+			ensureRemaining(1);
+			buffer.put(b);
+		}
+
+		private void write(byte[] b) throws IOException {
+			int offset = 0;
+			while (offset < b.length) {
+				ensureRemaining(1);
+				int length = Math.min(buffer.remaining(), b.length - offset);
+				buffer.put(b, offset, length);
+				offset += length;
+			}
+		}
+
+		private void pad(int length) throws IOException {
+			while (length > 0) {
+				ensureRemaining(1);
+				int n = Math.min(buffer.remaining(), length);
+				for (int i = 0; i < n; i++) {
+					buffer.put((byte) 0);
+				}
+				length -= n;
+			}
+		}
+
+		private void ensureRemaining(int length) throws IOException {
+			if (buffer.remaining() < length) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			position += writeFully(channel, buffer, position);
+			buffer.clear();
+		}
+
+		private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+			int written = 0;
+			while (buffer.hasRemaining()) {
+				written += channel.write(buffer, position + written);
+			}
+			return written;
+		}
 	}
 
 	public static MCAFile read(File file) throws IOException {
 		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
 			MCAFile m = readHeader(file, raf);
+			m.chunkDataLoaded = true;
 			for (int i = 0; i < m.offsets.length; i++) {
 				m.chunks[i] = m.getChunkData(i);
 				try {
@@ -111,6 +197,7 @@ public class MCAFile {
 	public static MCAFile readAll(File file, ByteArrayPointer ptr) {
 		MCAFile m = readHeader(file, ptr);
 		if (m != null) {
+			m.chunkDataLoaded = true;
 			for (int i = 0; i < m.offsets.length; i++) {
 				m.chunks[i] = m.getChunkData(i);
 				try {
@@ -124,6 +211,47 @@ public class MCAFile {
 		return m;
 	}
 
+	// reads all chunks without decoding them. a chunk is only decoded when its data is accessed,
+	// so chunks that are only moved to another file are written back exactly as they were read.
+	public static MCAFile readAllRaw(File file, ByteArrayPointer ptr) {
+		MCAFile m = readHeader(file, ptr);
+		if (m != null) {
+			m.chunkDataLoaded = true;
+			for (int i = 0; i < m.offsets.length; i++) {
+				m.chunks[i] = m.getChunkData(i);
+				if (m.offsets[i] == 0) {
+					continue;
+				}
+				try {
+					m.chunks[i].readHeader(ptr);
+					m.chunks[i].loadRawData(ptr);
+				} catch (Exception ex) {
+					Debug.dumpException("failed to load chunk at index " + i, ex);
+				}
+			}
+		}
+		return m;
+	}
+
+	// reads the header of the file and the headers of all existing chunks without loading any chunk data
+	public static MCAFile readChunkHeaders(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			MCAFile m = readHeader(file, raf);
+			for (int i = 0; i < m.offsets.length; i++) {
+				if (m.offsets[i] == 0) {
+					continue;
+				}
+				m.chunks[i] = m.getChunkData(i);
+				try {
+					m.chunks[i].readHeader(raf);
+				} catch (Exception ex) {
+					Debug.dumpException("failed to read chunk header at index " + i, ex);
+				}
+			}
+			return m;
+		}
+	}
+
 	// reads a single chunk from a region file as fast as possible
 	public static MCAChunkData readSingleChunk(File file, Point2i chunk) {
 		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
@@ -217,7 +345,7 @@ public class MCAFile {
 		}
 	}
 
-	public void deleteChunkIndices(Filter<?> filter, Set<Point2i> selection) {
+	public void deleteChunkIndices(FilterPlan filter, Set<Point2i> selection) {
 		for (int cx = 0; cx < Tile.SIZE_IN_CHUNKS; cx++) {
 			for (int cz = 0; cz < Tile.SIZE_IN_CHUNKS; cz++) {
 				int index = cz  * Tile.SIZE_IN_CHUNKS + cx;
@@ -228,7 +356,7 @@ public class MCAFile {
 					continue;
 				}
 
-				FilterData filterData = new FilterData(data.getTimestamp(), data.getData());
+				FilterData filterData = new FilterData(data);
 
 				if (filter.matches(filterData)) {
 					offsets[index] = 0;
@@ -239,7 +367,7 @@ public class MCAFile {
 		}
 	}
 
-	public void keepChunkIndices(Filter<?> filter, Set<Point2i> selection) {
+	public void keepChunkIndices(FilterPlan filter, Set<Point2i> selection) {
 		for (int cx = 0; cx < Tile.SIZE_IN_CHUNKS; cx++) {
 			for (int cz = 0; cz < Tile.SIZE_IN_CHUNKS; cz++) {
 				int index = cz * Tile.SIZE_IN_CHUNKS + cx;
@@ -250,7 +378,7 @@ public class MCAFile {
 					continue;
 				}
 
-				FilterData filterData = new FilterData(data.getTimestamp(), data.getData());
+				FilterData filterData = new FilterData(data);
 
 				//keep chunk if filter AND selection applies
 				//ignore selection if it's null
@@ -263,7 +391,13 @@ public class MCAFile {
 		}
 	}
 
-	public Set<Point2i> getFilteredChunks(Filter<?> filter) {
+	// if the chunk data of this file has not been loaded, the filter must not read any chunk data
+	public Set<Point2i> getFilteredChunks(FilterPlan filter) {
+		return getFilteredChunks(filter, null);
+	}
+
+	// sets the index of every chunk the filter could be evaluated on in evaluated, if it is not null
+	public Set<Point2i> getFilteredChunks(FilterPlan filter, BitSet evaluated) {
 		Set<Point2i> chunks = new HashSet<>();
 		for (int cx = 0; cx < Tile.SIZE_IN_CHUNKS; cx++) {
 			for (int cz = 0; cz < Tile.SIZE_IN_CHUNKS; cz++) {
@@ -271,14 +405,24 @@ public class MCAFile {
 
 				MCAChunkData data = this.chunks[index];
 
-				if (data.isEmpty()) {
+				if (chunkDataLoaded) {
+					if (data.isEmpty()) {
+						continue;
+					}
+				} else if (offsets[index] == 0 && sectors[index] == 0 && timestamps[index] == 0) {
 					continue;
+				} else if (data == null) {
+					data = getChunkData(index);
 				}
 
-				FilterData filterData = new FilterData(data.getTimestamp(), data.getData());
+				FilterData filterData = new FilterData(data);
 
 				try {
-					if (filter.matches(filterData)) {
+					boolean matches = filter.matches(filterData);
+					if (evaluated != null) {
+						evaluated.set(index);
+					}
+					if (matches) {
 						Point2i location = data.getAbsoluteLocation();
 						if (location == null) {
 							continue;
@@ -298,10 +442,8 @@ public class MCAFile {
 			for (int cz = 0; cz < Tile.SIZE_IN_CHUNKS; cz++) {
 				int index = cz * Tile.SIZE_IN_CHUNKS + cx;
 				MCAChunkData chunk = chunks[index];
-				if (selection == null || selection.contains(chunk.getAbsoluteLocation())) {
-					if (chunk != null && !chunk.isEmpty()) {
-						chunk.changeData(fields, force);
-					}
+				if (chunk != null && !chunk.isEmpty() && (selection == null || selection.contains(chunk.getAbsoluteLocation()))) {
+					chunk.changeData(fields, force);
 				}
 			}
 		}
@@ -332,6 +474,16 @@ public class MCAFile {
 		int startZ = relativeOffset.getY() > 0 ? 0 : Tile.SIZE_IN_CHUNKS - (Tile.SIZE_IN_CHUNKS + relativeOffset.getY());
 		int limitZ = relativeOffset.getY() > 0 ? (Tile.SIZE_IN_CHUNKS - relativeOffset.getY()) : Tile.SIZE_IN_CHUNKS;
 
+		// packed once per region so that checking the selection doesn't allocate a Point2i per chunk
+		LongHashSet packedSelection = selection == null ? null : toLongSet(selection);
+		int destinationChunkX = destination.location.getX() << 5;
+		int destinationChunkZ = destination.location.getY() << 5;
+		Point2i blockOffset = offset.chunkToBlock();
+
+		int[] sourceIndices = new int[Tile.CHUNKS];
+		int[] destinationIndices = new int[Tile.CHUNKS];
+		int count = 0;
+
 		for (int x = startX; x < limitX; x++) {
 			for (int z = startZ; z < limitZ; z++) {
 				int sourceIndex = z * Tile.SIZE_IN_CHUNKS + x;
@@ -350,41 +502,87 @@ public class MCAFile {
 					continue;
 				}
 
-				Point2i destChunk = destination.location.regionToChunk().add(destX, destZ);
+				if (packedSelection == null || packedSelection.contains(Point2i.toLong(destinationChunkX + destX, destinationChunkZ + destZ))) {
+					sourceIndices[count] = sourceIndex;
+					destinationIndices[count++] = destIndex;
+				}
+			}
+		}
+
+		// every chunk is merged into a different destination chunk, so they can be relocated and merged in parallel
+		MCAFilePipe.executeForEachChunk(count, i -> mergeChunkInto(destination, sourceIndices[i], destinationIndices[i], blockOffset, ranges));
+	}
 
-				if (selection == null || selection.contains(destChunk)) {
-					if (!sourceChunk.relocate(offset.chunkToBlock())) {
-						continue;
+	private void mergeChunkInto(MCAFile destination, int sourceIndex, int destIndex, Point2i blockOffset, List<Range> ranges) {
+		MCAChunkData sourceChunk = chunks[sourceIndex];
+		MCAChunkData destinationChunk = destination.chunks[destIndex];
+		Point2i srcChunk = location.regionToChunk().add(sourceIndex & 0x1F, sourceIndex >> 5);
+		Point2i destChunk = destination.location.regionToChunk().add(destIndex & 0x1F, destIndex >> 5);
+		try {
+			if (!sourceChunk.relocate(blockOffset)) {
+				return;
+			}
+
+			if (ranges != null) {
+				// raw chunks are merged on their nbt data, so that neither of them has to be decoded
+				if (sourceChunk.isRaw() && (destinationChunk == null || destinationChunk.isEmpty() || destinationChunk.isRaw())) {
+					if (destinationChunk == null || destinationChunk.isEmpty()) {
+						destinationChunk = MCAChunkData.newEmptyRawMCAChunkData(destChunk);
+					}
+					if (destinationChunk.mergeRaw(sourceChunk, ranges)) {
+						destination.chunks[destIndex] = destinationChunk;
 					}
+					return;
+				}
 
-					if (ranges != null) {
-						int sourceVersion = sourceChunk.getData().getInt("DataVersion");
-						if (sourceVersion != 0) {
-							int destinationVersion;
-							if (destinationChunk == null || destinationChunk.isEmpty()) {
-								destinationChunk = MCAChunkData.newEmptyLevelMCAChunkData(destChunk, sourceVersion);
-								destination.chunks[destIndex] = destinationChunk;
-							} else if (sourceVersion != (destinationVersion = destinationChunk.getData().getInt("DataVersion"))) {
-								Point2i srcChunk = location.regionToChunk().add(x, z);
-								Debug.errorf("can't merge chunk at %s into chunk at %s because their DataVersion does not match (%d != %d)",
-									srcChunk, destChunk, sourceVersion, destinationVersion);
-							}
-
-							ChunkDataProcessor p = VersionController.getChunkDataProcessor(sourceChunk.getData().getInt("DataVersion"));
-							try {
-								p.mergeChunks(sourceChunk.getData(), destinationChunk.getData(), ranges);
-							} catch (Exception ex) {
-								Point2i srcChunk = location.regionToChunk().add(x, z);
-								Debug.dump(new Exception("failed to merge chunk " + srcChunk + " into " + destChunk, ex));
-							}
-						}
-					} else {
-						destination.chunks[destIndex] = sourceChunk;
+				// chunks that were read raw are decoded here, which fails for corrupted chunks
+				if (sourceChunk.getData() == null) {
+					return;
+				}
+				int sourceVersion = sourceChunk.getData().getInt("DataVersion");
+				if (sourceVersion != 0) {
+					int destinationVersion;
+					if (destinationChunk == null || destinationChunk.isEmpty() || destinationChunk.getData() == null) {
+						destinationChunk = MCAChunkData.newEmptyLevelMCAChunkData(destChunk, sourceVersion);
+						destination.chunks[destIndex] = destinationChunk;
+					} else if (sourceVersion != (destinationVersion = destinationChunk.getData().getInt("DataVersion"))) {
+						Debug.errorf("can't merge chunk at %s into chunk at %s because their DataVersion does not match (%d != %d)",
+							srcChunk, destChunk, sourceVersion, destinationVersion);
 					}
 
+					ChunkDataProcessor p = VersionController.getChunkDataProcessor(sourceChunk.getData().getInt("DataVersion"));
+					p.mergeChunks(sourceChunk.getData(), destinationChunk.getData(), ranges);
+					destinationChunk.markDirty();
 				}
+			} else {
+				destination.chunks[destIndex] = sourceChunk;
 			}
+		} catch (Exception ex) {
+			Debug.dump(new Exception("failed to merge chunk " + srcChunk + " into " + destChunk, ex));
+		}
+	}
+
+	// compresses all changed chunks in parallel, so that saving this file only needs to write the compressed data
+	public void compressChunks() {
+		MCAFilePipe.executeForEachChunk(chunks.length, i -> {
+			MCAChunkData chunk = chunks[i];
+			if (chunk == null || chunk.isEmpty()) {
+				return;
+			}
+			try {
+				chunk.compress();
+			} catch (Exception ex) {
+				Debug.dumpException("failed to compress chunk " + chunk.getAbsoluteLocation(), ex);
+			}
+		});
+	}
+
+	private static LongHashSet toLongSet(Set<Point2i> points) {
+		LongHashSet set = new LongHashSet(points.size());
+		for (Point2i point : points) {
+			set.add(point.asLong());
 		}
+		return set;
 	}
 
 	private static Point2i getRelativeOffset(Point2i source, Point2i target, Point2i offset) {
@@ -460,24 +658,23 @@ public class MCAFile {
 				+ (chunkCoordinate.getY() & (Tile.SIZE_IN_CHUNKS - 1)) * Tile.SIZE_IN_CHUNKS;
 	}
 
-	private Point2i getChunkOffsetFromIndex(int index) {
-		int x = index % Tile.SIZE_IN_CHUNKS;
-		int z = index / Tile.SIZE_IN_CHUNKS;
-		return new Point2i(x, z);
-	}
-
 	public MCAChunkData getChunkData(Point2i location) {
 		return getChunkData(getChunkIndex(location));
 	}
 
 	public MCAChunkData getChunkData(int index) {
-		return new MCAChunkData(location.regionToChunk().add(getChunkOffsetFromIndex(index)), offsets[index], timestamps[index], sectors[index]);
+		Point2i absoluteLocation = new Point2i((location.getX() << 5) + (index & 0x1F), (location.getY() << 5) + (index >> 5));
+		return new MCAChunkData(absoluteLocation, offsets[index], timestamps[index], sectors[index]);
 	}
 
 	public MCAChunkData getLoadedChunkData(Point2i location) {
 		return chunks[getChunkIndex(location)];
 	}
 
+	public MCAChunkData getLoadedChunkData(int index) {
+		return chunks[index];
+	}
+
 	public void setChunkData(int index, MCAChunkData chunk) {
 		chunks[index] = chunk;
 	}
@@ -3,9 +3,12 @@ package net.querz.mcaselector.io;
 import net.querz.mcaselector.Config;
 import net.querz.mcaselector.debug.Debug;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
 public final class MCAFilePipe {
@@ -19,6 +22,9 @@ public final class MCAFilePipe {
 	//saving the cache files may take relatively long, so we do this separately but still single threaded because it's a hdd access
 	private static ThreadPoolExecutor saveDataExecutor;
 
+	//compressing and decompressing the chunks of a single region file can be distributed to multiple threads
+	private static ForkJoinPool chunkExecutor;
+
 	private static final Queue<LoadDataJob> waitingForLoad = new LinkedBlockingQueue<>();
 
 	static {
@@ -26,6 +32,7 @@ public final class MCAFilePipe {
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> loadDataExecutor.shutdownNow()));
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> processDataExecutor.shutdownNow()));
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> saveDataExecutor.shutdownNow()));
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> chunkExecutor.shutdownNow()));
 	}
 
 	public static void init() {
@@ -40,6 +47,9 @@ public final class MCAFilePipe {
 		if (saveDataExecutor != null) {
 			saveDataExecutor.shutdownNow();
 		}
+		if (chunkExecutor != null) {
+			chunkExecutor.shutdownNow();
+		}
 		loadDataExecutor = new ThreadPoolExecutor(
 				Config.getLoadThreads(), Config.getLoadThreads(),
 				0L, TimeUnit.MILLISECONDS,
@@ -55,6 +65,8 @@ public final class MCAFilePipe {
 				0L, TimeUnit.MILLISECONDS,
 				new LinkedBlockingQueue<>());
 		Debug.dumpf("created data save ThreadPoolExecutor with %d threads", Config.getWriteThreads());
+		chunkExecutor = new ForkJoinPool(Config.getProcessThreads());
+		Debug.dumpf("created chunk ForkJoinPool with %d threads", Config.getProcessThreads());
 	}
 
 	static void refillDataLoadExecutorQueue() {
@@ -91,6 +103,41 @@ public final class MCAFilePipe {
 		saveDataExecutor.execute(job);
 	}
 
+	// runs the task for every chunk index from 0 to count in parallel and returns when all of them are done.
+	// this is used by jobs to distribute the work on the chunks of a single region file.
+	static void executeForEachChunk(int count, IntConsumer task) {
+		if (count <= 0) {
+			return;
+		}
+		chunkExecutor.invoke(new ChunkTask(0, count, task));
+	}
+
+	private static class ChunkTask extends RecursiveAction {
+
+		private static final int THRESHOLD = 8;
+
+		private final int from, to;
+		private final IntConsumer task;
+
+		private ChunkTask(int from, int to, IntConsumer task) {
+			this.from = from;
+			this.to = to;
+			this.task = task;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					task.accept(i);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ChunkTask(from, mid, task), new ChunkTask(mid, to, task));
+		}
+	}
+
 	public static void validateJobs(Predicate<LoadDataJob> p) {
 		waitingForLoad.removeIf(p);
 	}
@@ -0,0 +1,311 @@
+package net.querz.mcaselector.io;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import net.querz.mcaselector.Config;
+import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.progress.Progress;
+import net.querz.mcaselector.progress.Timer;
+import net.querz.mcaselector.tiles.Tile;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// generates the overview images used when zooming out further than Config.MAX_SCALE.
+// an overview image covers SIZE_IN_REGIONS x SIZE_IN_REGIONS regions with one pixel per chunk
+// and is composed from the cached images of the max zoom level.
+public final class OverviewImageGenerator {
+
+	public static final int SIZE_IN_REGIONS = 16;
+	public static final int SIZE = SIZE_IN_REGIONS * Tile.SIZE_IN_CHUNKS;
+	public static final int SIZE_IN_BLOCKS = SIZE_IN_REGIONS * Tile.SIZE;
+
+	private static final Set<Point2i> loading = ConcurrentHashMap.newKeySet();
+
+	// regions whose images are being generated to complete an overview image, by overview coordinate
+	private static final Map<Point2i, Set<Point2i>> generating = new ConcurrentHashMap<>();
+
+	// regions for which no image could be generated, so they don't keep their overview image incomplete
+	private static final Set<Point2i> failed = ConcurrentHashMap.newKeySet();
+
+	private static Consumer<Point2i> invalidationListener;
+
+	private OverviewImageGenerator() {}
+
+	// the listener is called with the overview coordinate when an overview image is outdated
+	public static void setInvalidationListener(Consumer<Point2i> listener) {
+		invalidationListener = listener;
+	}
+
+	public static boolean isGenerating(Point2i region) {
+		Set<Point2i> pending = generating.get(regionToOverview(region));
+		return pending != null && pending.contains(region);
+	}
+
+	// forgets about pending and failed region images, e.g. when switching to a different world
+	public static void clear() {
+		generating.clear();
+		failed.clear();
+	}
+
+	public static void load(Point2i overview, UUID world, BiConsumer<Image, UUID> callback) {
+		if (loading.add(overview)) {
+			MCAFilePipe.addJob(new OverviewLoadJob(FileHelper.createOverviewPNGFilePath(overview), overview, world, callback));
+		}
+	}
+
+	public static boolean isLoading(Point2i overview) {
+		return loading.contains(overview);
+	}
+
+	public static Point2i regionToOverview(Point2i region) {
+		return region.shiftRight(4);
+	}
+
+	// generates and saves the overview image in its own job, used when generating the cache
+	public static void generate(Point2i overview, Progress progressChannel) {
+		MCAFilePipe.executeSaveData(new OverviewGenerateJob(FileHelper.createOverviewPNGFilePath(overview), overview, progressChannel));
+	}
+
+	// deletes the overview image containing this region so it will be regenerated the next time it's needed
+	public static void invalidate(Point2i region) {
+		Point2i overview = regionToOverview(region);
+		File file = FileHelper.createOverviewPNGFilePath(overview);
+		if (file.exists() && !file.delete()) {
+			Debug.error("could not delete file " + file);
+		}
+		failed.remove(region);
+		Set<Point2i> pending = generating.get(overview);
+		if (pending != null) {
+			// the listener is notified once all missing regions of this overview are done
+			pending.remove(region);
+			return;
+		}
+		notifyInvalidated(overview);
+	}
+
+	private static void notifyInvalidated(Point2i overview) {
+		Consumer<Point2i> listener = invalidationListener;
+		if (listener != null) {
+			listener.accept(overview);
+		}
+	}
+
+	// generates the cached images of regions that are missing in an overview image
+	private static void generateMissingRegions(Point2i overview, UUID world, Set<Point2i> missing) {
+		// regions that are already being generated will invalidate the overview image by themselves
+		missing.removeIf(region -> RegionImageGenerator.isLoading(new Tile(region)));
+		if (missing.isEmpty()) {
+			return;
+		}
+
+		// all regions need to be pending before the first one is queued, otherwise it could finish the overview early
+		Set<Point2i> pending = ConcurrentHashMap.newKeySet();
+		pending.addAll(missing);
+		if (generating.putIfAbsent(overview, pending) != null) {
+			return;
+		}
+		for (Point2i region : missing) {
+			RegionImageGenerator.generate(new Tile(region), world, (i, u) -> {}, () -> (float) Config.getMaxZoomLevel(), false, new RegionProgress(overview, region));
+		}
+	}
+
+	private static void regionDone(Point2i overview, Set<Point2i> pending, Point2i region) {
+		// a successfully generated region has already been removed from pending when its image was saved
+		if (pending.remove(region)) {
+			failed.add(region);
+		}
+		if (pending.isEmpty() && generating.remove(overview, pending)) {
+			notifyInvalidated(overview);
+		}
+	}
+
+	private static OverviewImage createOverviewImage(Point2i overview) {
+		Timer t = new Timer();
+
+		File cacheDir = new File(Config.getCacheDir(), Config.getMaxZoomLevel() + "");
+		BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		boolean empty = true;
+		Set<Point2i> missing = new HashSet<>();
+		Point2i min = overview.shiftLeft(4);
+		for (int x = 0; x < SIZE_IN_REGIONS; x++) {
+			for (int z = 0; z < SIZE_IN_REGIONS; z++) {
+				Point2i region = min.add(x, z);
+				File cachedImage = FileHelper.createPNGFilePath(cacheDir, region);
+				if (!cachedImage.exists()) {
+					// if there is a region file without a cached image, the overview image is not complete yet
+					if (!failed.contains(region) && FileHelper.createMCAFilePath(region).exists()) {
+						missing.add(region);
+					}
+					continue;
+				}
+				try {
+					BufferedImage regionImage = ImageIO.read(cachedImage);
+					if (regionImage == null) {
+						missing.add(region);
+						continue;
+					}
+					g.drawImage(regionImage, x * Tile.SIZE_IN_CHUNKS, z * Tile.SIZE_IN_CHUNKS, Tile.SIZE_IN_CHUNKS, Tile.SIZE_IN_CHUNKS, null);
+					empty = false;
+				} catch (IOException ex) {
+					Debug.dumpException("failed to read cached image " + cachedImage, ex);
+					missing.add(region);
+				}
+			}
+		}
+		g.dispose();
+
+		Debug.dumpf("took %s to create overview image for %s", t, overview);
+
+		return new OverviewImage(empty ? null : image, missing);
+	}
+
+	private static void save(BufferedImage image, File file) {
+		if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+			Debug.errorf("failed to create cache directory for %s", file.getAbsolutePath());
+		}
+		try {
+			Debug.dumpf("writing overview cache file %s", file.getAbsolutePath());
+			ImageIO.write(image, "png", file);
+		} catch (IOException ex) {
+			Debug.dumpException("failed to save overview image to " + file, ex);
+		}
+	}
+
+	private static class OverviewImage {
+
+		private final BufferedImage image;
+		private final Set<Point2i> missing;
+
+		private OverviewImage(BufferedImage image, Set<Point2i> missing) {
+			this.image = image;
+			this.missing = missing;
+		}
+	}
+
+	// RegionImageGenerator increments the progress once a region is done, no matter if it succeeded
+	private static class RegionProgress implements Progress {
+
+		private final Point2i overview;
+		private final Point2i region;
+
+		private RegionProgress(Point2i overview, Point2i region) {
+			this.overview = overview;
+			this.region = region;
+		}
+
+		@Override
+		public void setMax(int max) {}
+
+		@Override
+		public void updateProgress(String msg, int progress) {}
+
+		@Override
+		public void done(String msg) {}
+
+		@Override
+		public void incrementProgress(String msg) {
+			Set<Point2i> pending = generating.get(overview);
+			if (pending != null) {
+				regionDone(overview, pending, region);
+			}
+		}
+
+		@Override
+		public void incrementProgress(String msg, int progress) {
+			incrementProgress(msg);
+		}
+
+		@Override
+		public void setMessage(String msg) {}
+	}
+
+	private static class OverviewLoadJob extends LoadDataJob {
+
+		private final Point2i overview;
+		private final UUID world;
+		private final BiConsumer<Image, UUID> callback;
+
+		private OverviewLoadJob(File file, Point2i overview, UUID world, BiConsumer<Image, UUID> callback) {
+			super(file);
+			this.overview = overview;
+			this.world = world;
+			this.callback = callback;
+		}
+
+		@Override
+		public void execute() {
+			Image image = null;
+			Set<Point2i> missing = null;
+			if (getFile().exists()) {
+				byte[] data = load();
+				if (data != null) {
+					image = new Image(new ByteArrayInputStream(data));
+				}
+			} else {
+				OverviewImage overviewImage = createOverviewImage(overview);
+				missing = overviewImage.missing;
+				if (overviewImage.image != null) {
+					// only persist complete overview images, incomplete ones are regenerated once their missing regions are done
+					if (missing.isEmpty()) {
+						MCAFilePipe.executeSaveData(new OverviewSaveJob(getFile(), overviewImage.image));
+					}
+					image = SwingFXUtils.toFXImage(overviewImage.image, null);
+				}
+			}
+			loading.remove(overview);
+			callback.accept(image, world);
+
+			// queued after the callback so the incomplete image is never shown after it has been invalidated
+			if (missing != null && !missing.isEmpty()) {
+				generateMissingRegions(overview, world, missing);
+			}
+		}
+	}
+
+	private static class OverviewGenerateJob extends SaveDataJob<Point2i> {
+
+		private final Progress progressChannel;
+
+		private OverviewGenerateJob(File file, Point2i overview, Progress progressChannel) {
+			super(file, overview);
+			this.progressChannel = progressChannel;
+		}
+
+		@Override
+		public void execute() {
+			OverviewImage overviewImage = createOverviewImage(getData());
+			if (overviewImage.image != null) {
+				save(overviewImage.image, getFile());
+			}
+			progressChannel.incrementProgress(getFile().getName());
+		}
+	}
+
+	private static class OverviewSaveJob extends SaveDataJob<BufferedImage> {
+
+		private OverviewSaveJob(File file, BufferedImage data) {
+			super(file, data);
+		}
+
+		@Override
+		public void execute() {
+			save(getData(), getFile());
+		}
+	}
+}
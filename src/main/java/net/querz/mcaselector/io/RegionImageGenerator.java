@@ -43,6 +43,14 @@ public class RegionImageGenerator {
 		}
 	}
 
+	// world is null when generating the cache in headless mode, in which case the cache dir is set directly
+	private static File getCacheDir(UUID world, int zoomLevel) {
+		if (world == null) {
+			return new File(Config.getCacheDir(), zoomLevel + "");
+		}
+		return Config.getCacheDirForWorldUUID(world, zoomLevel);
+	}
+
 	public static class MCAImageLoadJob extends LoadDataJob {
 
 		private final Tile tile;
@@ -148,7 +156,7 @@ public class RegionImageGenerator {
 				BufferedImage img = SwingFXUtils.fromFXImage(getData(), null);
 				if (scaleOnly) {
 					int zoomLevel = Tile.getZoomLevel(scaleSupplier.get());
-					File cacheFile = FileHelper.createPNGFilePath(Config.getCacheDirForWorldUUID(world, zoomLevel), tile.getLocation());
+					File cacheFile = FileHelper.createPNGFilePath(getCacheDir(world, zoomLevel), tile.getLocation());
 					if (!cacheFile.getParentFile().exists() && !cacheFile.getParentFile().mkdirs()) {
 						Debug.errorf("failed to create cache directory for %s", cacheFile.getAbsolutePath());
 					}
@@ -159,7 +167,7 @@ public class RegionImageGenerator {
 
 				} else {
 					for (int i = Config.getMinZoomLevel(); i <= Config.getMaxZoomLevel(); i *= 2) {
-						File cacheFile = FileHelper.createPNGFilePath(Config.getCacheDirForWorldUUID(world, i), tile.getLocation());
+						File cacheFile = FileHelper.createPNGFilePath(getCacheDir(world, i), tile.getLocation());
 						if (!cacheFile.getParentFile().exists() && !cacheFile.getParentFile().mkdirs()) {
 							Debug.errorf("failed to create cache directory for %s", cacheFile.getAbsolutePath());
 						}
@@ -169,6 +177,11 @@ public class RegionImageGenerator {
 						ImageIO.write(scaled, "png", cacheFile);
 					}
 				}
+
+				// the overview image containing this region is outdated now
+				if (world == null || world.equals(Config.getWorldUUID())) {
+					OverviewImageGenerator.invalidate(tile.getLocation());
+				}
 			} catch (IOException ex) {
 				Debug.dumpException("failed to save images to cache for " + tile.getLocation(), ex);
 			}
@@ -0,0 +1,175 @@
+package net.querz.mcaselector.point;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+// a map with primitive long keys, meant for coordinates packed with Point2i.toLong(),
+// so that looking up values does not require allocating a Point2i.
+// uses open addressing with linear probing.
+public class LongHashMap<V> {
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private long[] keys;
+	private Object[] values;
+	private boolean[] used;
+	private int mask;
+	private int resizeAt;
+	private int size = 0;
+
+	public LongHashMap() {
+		this(16);
+	}
+
+	public LongHashMap(int expectedSize) {
+		allocate(tableSize(expectedSize, LOAD_FACTOR));
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int i = find(key);
+		return used[i] ? (V) values[i] : null;
+	}
+
+	public boolean containsKey(long key) {
+		return used[find(key)];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		int i = find(key);
+		if (used[i]) {
+			V old = (V) values[i];
+			values[i] = value;
+			return old;
+		}
+		keys[i] = key;
+		values[i] = value;
+		used[i] = true;
+		if (++size >= resizeAt) {
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(long key, LongFunction<V> mappingFunction) {
+		int i = find(key);
+		if (used[i]) {
+			return (V) values[i];
+		}
+		V value = mappingFunction.apply(key);
+		put(key, value);
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int i = find(key);
+		if (!used[i]) {
+			return null;
+		}
+		V old = (V) values[i];
+		size--;
+		shiftKeys(i);
+		return old;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		if (size == 0) {
+			return;
+		}
+		Arrays.fill(used, false);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	public void forEach(Entry<V> consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				@SuppressWarnings("unchecked")
+				V value = (V) values[i];
+				consumer.accept(keys[i], value);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface Entry<V> {
+		void accept(long key, V value);
+	}
+
+	static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	static int tableSize(int expectedSize, float loadFactor) {
+		int capacity = 16;
+		while (capacity * loadFactor <= expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private int find(long key) {
+		int i = hash(key) & mask;
+		while (used[i] && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	// closes the gap at pos by moving subsequent entries of the same probe sequence back
+	private void shiftKeys(int pos) {
+		int last, slot;
+		for (;;) {
+			pos = ((last = pos) + 1) & mask;
+			for (;;) {
+				if (!used[pos]) {
+					used[last] = false;
+					values[last] = null;
+					return;
+				}
+				slot = hash(keys[pos]) & mask;
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+					break;
+				}
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = keys[pos];
+			values[last] = values[pos];
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int j = find(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				used[j] = true;
+			}
+		}
+	}
+}
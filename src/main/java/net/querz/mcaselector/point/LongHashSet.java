@@ -0,0 +1,148 @@
+package net.querz.mcaselector.point;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// a set of primitive longs, meant for coordinates packed with Point2i.toLong(),
+// so that adding, removing and looking up coordinates does not allocate any objects.
+// uses open addressing with linear probing.
+public class LongHashSet {
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private long[] keys;
+	private boolean[] used;
+	private int mask;
+	private int resizeAt;
+	private int size = 0;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	public LongHashSet(int expectedSize) {
+		allocate(LongHashMap.tableSize(expectedSize, LOAD_FACTOR));
+	}
+
+	public boolean add(long key) {
+		int i = find(key);
+		if (used[i]) {
+			return false;
+		}
+		keys[i] = key;
+		used[i] = true;
+		if (++size >= resizeAt) {
+			rehash(keys.length << 1);
+		}
+		return true;
+	}
+
+	public boolean contains(long key) {
+		return used[find(key)];
+	}
+
+	public boolean remove(long key) {
+		int i = find(key);
+		if (!used[i]) {
+			return false;
+		}
+		size--;
+		shiftKeys(i);
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		if (size == 0) {
+			return;
+		}
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	public void forEach(LongConsumer consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				consumer.accept(keys[i]);
+			}
+		}
+	}
+
+	public long[] toArray() {
+		long[] result = new long[size];
+		int j = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				result[j++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	private int find(long key) {
+		int i = LongHashMap.hash(key) & mask;
+		while (used[i] && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	// closes the gap at pos by moving subsequent entries of the same probe sequence back
+	private void shiftKeys(int pos) {
+		int last, slot;
+		for (;;) {
+			pos = ((last = pos) + 1) & mask;
+			for (;;) {
+				if (!used[pos]) {
+					used[last] = false;
+					return;
+				}
+				slot = LongHashMap.hash(keys[pos]) & mask;
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+					break;
+				}
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = keys[pos];
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int j = find(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				used[j] = true;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		forEach(p -> {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append("<").append(Point2i.unpackX(p)).append(", ").append(Point2i.unpackZ(p)).append(">");
+		});
+		return sb.append("]").toString();
+	}
+}
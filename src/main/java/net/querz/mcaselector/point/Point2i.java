@@ -1,7 +1,6 @@
 package net.querz.mcaselector.point;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 public class Point2i implements Cloneable, Serializable {
 
@@ -128,6 +127,31 @@ public class Point2i implements Cloneable, Serializable {
 		return new Point2f((float) x, (float) z);
 	}
 
+	// packs this point into a single long, x in the upper and z in the lower 32 bits
+	public long asLong() {
+		return toLong(x, z);
+	}
+
+	public static long toLong(int x, int z) {
+		return (long) x << 32 | z & 0xFFFFFFFFL;
+	}
+
+	public static int unpackX(long p) {
+		return (int) (p >> 32);
+	}
+
+	public static int unpackZ(long p) {
+		return (int) p;
+	}
+
+	public static Point2i fromLong(long p) {
+		return new Point2i(unpackX(p), unpackZ(p));
+	}
+
+	public static long chunkToRegion(long chunk) {
+		return toLong(unpackX(chunk) >> 5, unpackZ(chunk) >> 5);
+	}
+
 	@Override
 	public boolean equals(Object other) {
 		return other instanceof Point2i
@@ -137,7 +161,8 @@ public class Point2i implements Cloneable, Serializable {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(x, z);
+		// same as Objects.hash(x, z), without boxing and allocating a varargs array
+		return 31 * (31 + x) + z;
 	}
 
 	@Override
@@ -64,6 +64,7 @@ public enum Translation {
 	DIALOG_SETTINGS_CHUNK_COLOR("dialog.settings.chunk_color"),
 	DIALOG_SETTINGS_SHADE("dialog.settings.shade"),
 	DIALOG_SETTINGS_SHADE_WATER("dialog.settings.shade_water"),
+	DIALOG_SETTINGS_CHECK_BLOCK_STATES("dialog.settings.check_block_states"),
 	DIALOG_SETTINGS_PRINT_DEBUG("dialog.settings.print_debug"),
 	DIALOG_SETTINGS_RESET("dialog.settings.reset"),
 	DIALOG_GOTO_TITLE("dialog.goto.title"),
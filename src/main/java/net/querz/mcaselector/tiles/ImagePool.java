@@ -67,7 +67,7 @@ public class ImagePool {
 					tile.setLoaded(true);
 					tile.setLoading(false);
 					push(scale, tile.location, cachedImg);
-					tileMap.update();
+					tileMap.updateTile(tile.location);
 				}
 			});
 		} else {
@@ -81,7 +81,7 @@ public class ImagePool {
 				synchronized (Config.getWorldUUID()) {
 					if (u.equals(Config.getWorldUUID())) {
 						push(scale, tile.location, i);
-						Platform.runLater(tileMap::update);
+						Platform.runLater(() -> tileMap.updateTile(tile.location));
 					}
 				}
 			}, () -> (float) scale, false, null);
@@ -5,11 +5,10 @@ import net.querz.mcaselector.Config;
 import net.querz.mcaselector.ui.Color;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.io.FileHelper;
+import net.querz.mcaselector.point.LongHashSet;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.io.ImageHelper;
 import java.io.*;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.Supplier;
 
 public class Tile {
@@ -29,13 +28,15 @@ public class Tile {
 	Point2i location;
 
 	Image image;
-	Image markedChunksImage;
+	// one bit per chunk, bit x of row z is set if the chunk at x, z of this tile is marked.
+	// created lazily when the selection is drawn, afterwards only the bits of changed chunks are updated.
+	int[] markedChunksBitmap;
 
 	boolean loading = false;
 	boolean loaded = false;
 	boolean marked = false;
-	//a set of all marked chunks in the tile in block locations
-	Set<Point2i> markedChunks = new HashSet<>();
+	//a set of all marked chunks in the tile in chunk locations, packed with Point2i.toLong()
+	LongHashSet markedChunks = new LongHashSet();
 
 	public Tile(Point2i location) {
 		this.location = location;
@@ -57,13 +58,19 @@ public class Tile {
 	//as a threshold
 	//threshold is measured in tiles
 	public boolean isVisible(TileMap tileMap, int threshold) {
-		Point2i o = tileMap.getOffset().toPoint2i();
-		Point2i min = o.sub(threshold * SIZE).blockToRegion().regionToBlock();
-		Point2i max = new Point2i(
-				(int) (o.getX() + tileMap.getWidth() * tileMap.getScale()),
-				(int) (o.getY() + tileMap.getHeight() * tileMap.getScale())).add(threshold * SIZE).blockToRegion().regionToBlock();
-		return location.getX() * SIZE >= min.getX() && location.getY() * SIZE >= min.getY()
-				&& location.getX() * SIZE <= max.getX() && location.getY() * SIZE <= max.getY();
+		int ox = (int) tileMap.getOffset().getX();
+		int oz = (int) tileMap.getOffset().getY();
+		return isInRange(
+				(ox - threshold * SIZE) >> 9,
+				(oz - threshold * SIZE) >> 9,
+				((int) (ox + tileMap.getWidth() * tileMap.getScale()) + threshold * SIZE) >> 9,
+				((int) (oz + tileMap.getHeight() * tileMap.getScale()) + threshold * SIZE) >> 9);
+	}
+
+	//returns whether this tile is within min and max (inclusive, in region coordinates)
+	public boolean isInRange(int minX, int minZ, int maxX, int maxZ) {
+		return location.getX() >= minX && location.getY() >= minZ
+				&& location.getX() <= maxX && location.getY() <= maxZ;
 	}
 
 	public Image getImage() {
@@ -98,10 +105,7 @@ public class Tile {
 		if (image != null) {
 			image.cancel();
 		}
-		if (markedChunksImage != null) {
-			markedChunksImage.cancel();
-			markedChunksImage = null;
-		}
+		markedChunksBitmap = null;
 		loaded = false;
 	}
 
@@ -109,16 +113,20 @@ public class Tile {
 		this.marked = marked;
 		if (marked) {
 			markedChunks.clear();
-			markedChunksImage = null;
+			markedChunksBitmap = null;
 		}
 	}
 
 	public void mark(Point2i chunkBlock) {
-		markedChunks.add(chunkBlock);
+		mark(chunkBlock.asLong());
+	}
+
+	public void mark(long chunk) {
+		markedChunks.add(chunk);
 		if (markedChunks.size() == CHUNKS) {
 			mark(true);
 		} else {
-			markedChunksImage = null; //reset markedChunksImage
+			TileImage.updateMarkedChunksBitmap(this, chunk, true);
 		}
 	}
 
@@ -127,29 +135,39 @@ public class Tile {
 	}
 
 	public boolean isMarked(Point2i chunkBlock) {
-		return isMarked() || markedChunks.contains(chunkBlock);
+		return isMarked(chunkBlock.asLong());
+	}
+
+	public boolean isMarked(long chunk) {
+		return isMarked() || markedChunks.contains(chunk);
 	}
 
 	public void unMark(Point2i chunkBlock) {
+		unMark(chunkBlock.asLong());
+	}
+
+	public void unMark(long chunk) {
 		if (isMarked()) {
-			Point2i regionChunk = location.regionToChunk();
+			int regionChunkX = location.getX() << 5;
+			int regionChunkZ = location.getY() << 5;
 			for (int x = 0; x < SIZE_IN_CHUNKS; x++) {
 				for (int z = 0; z < SIZE_IN_CHUNKS; z++) {
-					markedChunks.add(regionChunk.add(x, z));
+					markedChunks.add(Point2i.toLong(regionChunkX + x, regionChunkZ + z));
 				}
 			}
 			mark(false);
 		}
-		markedChunks.remove(chunkBlock);
-		markedChunksImage = null; //reset markedChunksImage
+		markedChunks.remove(chunk);
+		TileImage.updateMarkedChunksBitmap(this, chunk, false);
 	}
 
 	public void clearMarks() {
 		mark(false);
 		markedChunks.clear();
+		markedChunksBitmap = null;
 	}
 
-	public Set<Point2i> getMarkedChunks() {
+	public LongHashSet getMarkedChunks() {
 		return markedChunks;
 	}
 
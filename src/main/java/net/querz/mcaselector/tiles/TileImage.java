@@ -1,8 +1,6 @@
 package net.querz.mcaselector.tiles;
 
 import javafx.embed.swing.SwingFXUtils;
-import javafx.scene.SnapshotParameters;
-import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.image.PixelFormat;
@@ -45,47 +43,53 @@ public final class TileImage {
 		} else {
 			ctx.drawImage(ImageHelper.getEmptyTileImage(), offset.getX(), offset.getY(), Tile.SIZE / scale, Tile.SIZE / scale);
 		}
+	}
 
+	public static void drawSelection(Tile tile, GraphicsContext ctx, float scale, Point2f offset) {
 		if (tile.marked) {
 			//draw marked region
 			ctx.setFill(Config.getRegionSelectionColor().makeJavaFXColor());
 			ctx.fillRect(offset.getX(), offset.getY(), Tile.SIZE / scale, Tile.SIZE / scale);
 		} else if (tile.markedChunks.size() > 0) {
 
-			if (tile.markedChunksImage == null) {
-				createMarkedChunksImage(tile, Tile.getZoomLevel(scale));
+			if (tile.markedChunksBitmap == null) {
+				createMarkedChunksBitmap(tile);
 			}
 
-			// apply markedChunksImage to ctx
-			ctx.drawImage(tile.markedChunksImage, offset.getX(), offset.getY(), Tile.SIZE / scale, Tile.SIZE / scale);
+			// draw one rectangle per run of marked chunks in each row of the tile
+			ctx.setFill(Config.getChunkSelectionColor().makeJavaFXColor());
+			double chunkSize = Tile.CHUNK_SIZE / scale;
+			for (int z = 0; z < Tile.SIZE_IN_CHUNKS; z++) {
+				int row = tile.markedChunksBitmap[z];
+				while (row != 0) {
+					int start = Integer.numberOfTrailingZeros(row);
+					int length = Integer.numberOfTrailingZeros(~(row >>> start));
+					ctx.fillRect(offset.getX() + start * chunkSize, offset.getY() + z * chunkSize, length * chunkSize, chunkSize);
+					row &= length == Integer.SIZE ? 0 : ~(((1 << length) - 1) << start);
+				}
+			}
 		}
 	}
 
-	static void createMarkedChunksImage(Tile tile, int zoomLevel) {
-		WritableImage wImage = new WritableImage(Tile.SIZE / zoomLevel, Tile.SIZE / zoomLevel);
-
-		Canvas canvas = new Canvas(Tile.SIZE / (float) zoomLevel, Tile.SIZE / (float) zoomLevel);
-		GraphicsContext ctx = canvas.getGraphicsContext2D();
-		ctx.setFill(Config.getChunkSelectionColor().makeJavaFXColor());
-
-		for (Point2i markedChunk : tile.markedChunks) {
-			Point2i regionChunk = markedChunk.mod(Tile.SIZE_IN_CHUNKS);
-			if (regionChunk.getX() < 0) {
-				regionChunk.setX(regionChunk.getX() + Tile.SIZE_IN_CHUNKS);
-			}
-			if (regionChunk.getY() < 0) {
-				regionChunk.setY(regionChunk.getY() + Tile.SIZE_IN_CHUNKS);
-			}
+	// creates a bitmap with one bit per chunk from the marked chunks of this tile.
+	// single chunks can then be updated with updateMarkedChunksBitmap().
+	static void createMarkedChunksBitmap(Tile tile) {
+		int[] bitmap = new int[Tile.SIZE_IN_CHUNKS];
+		tile.markedChunks.forEach(markedChunk -> bitmap[Point2i.unpackZ(markedChunk) & 0x1F] |= 1 << (Point2i.unpackX(markedChunk) & 0x1F));
+		tile.markedChunksBitmap = bitmap;
+	}
 
-			ctx.fillRect(regionChunk.getX() * Tile.CHUNK_SIZE / (float) zoomLevel, regionChunk.getY() * Tile.CHUNK_SIZE / (float) zoomLevel, Tile.CHUNK_SIZE / (float) zoomLevel, Tile.CHUNK_SIZE / (float) zoomLevel);
+	static void updateMarkedChunksBitmap(Tile tile, long chunk, boolean marked) {
+		int[] bitmap = tile.markedChunksBitmap;
+		if (bitmap == null) {
+			return;
+		}
+		int bit = 1 << (Point2i.unpackX(chunk) & 0x1F);
+		if (marked) {
+			bitmap[Point2i.unpackZ(chunk) & 0x1F] |= bit;
+		} else {
+			bitmap[Point2i.unpackZ(chunk) & 0x1F] &= ~bit;
 		}
-
-		SnapshotParameters params = new SnapshotParameters();
-		params.setFill(Color.TRANSPARENT.makeJavaFXColor());
-
-		canvas.snapshot(params, wImage);
-
-		tile.markedChunksImage = wImage;
 	}
 
 	public static Image generateImage(Tile tile, UUID world, BiConsumer<Image, UUID> callback, Supplier<Float> scaleSupplier, byte[] rawData) {
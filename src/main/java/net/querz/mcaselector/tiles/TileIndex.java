@@ -0,0 +1,139 @@
+package net.querz.mcaselector.tiles;
+
+import net.querz.mcaselector.point.LongHashMap;
+import net.querz.mcaselector.point.Point2i;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// spatial index of all tiles known to the TileMap.
+// tiles are grouped into cells of CELL_SIZE x CELL_SIZE regions, so that range queries
+// only need to look at the cells overlapping the requested area instead of all tiles.
+// tiles with a selection are additionally tracked in a separate set, so that
+// selection queries don't need to iterate over unmarked tiles.
+class TileIndex {
+
+	private static final int CELL_SHIFT = 5;
+	static final int CELL_SIZE = 1 << CELL_SHIFT;
+	private static final int CELL_MASK = CELL_SIZE - 1;
+
+	private final LongHashMap<Tile[]> cells = new LongHashMap<>();
+	private final Set<Tile> markedTiles = new HashSet<>();
+	private int size = 0;
+
+	Tile get(Point2i region) {
+		return get(region.getX(), region.getY());
+	}
+
+	Tile get(int x, int z) {
+		Tile[] cell = cells.get(Point2i.toLong(x >> CELL_SHIFT, z >> CELL_SHIFT));
+		return cell == null ? null : cell[index(x, z)];
+	}
+
+	// returns the tile at this location, creating a new one if there is none yet
+	Tile getOrCreate(Point2i region) {
+		return getOrCreate(region.getX(), region.getY());
+	}
+
+	Tile getOrCreate(int x, int z) {
+		Tile[] cell = cells.computeIfAbsent(Point2i.toLong(x >> CELL_SHIFT, z >> CELL_SHIFT), k -> new Tile[CELL_SIZE * CELL_SIZE]);
+		int index = index(x, z);
+		if (cell[index] == null) {
+			cell[index] = new Tile(new Point2i(x, z));
+			size++;
+		}
+		return cell[index];
+	}
+
+	Tile remove(Point2i region) {
+		long cellLocation = cellLocation(region);
+		Tile[] cell = cells.get(cellLocation);
+		if (cell == null) {
+			return null;
+		}
+		int index = index(region.getX(), region.getY());
+		Tile tile = cell[index];
+		if (tile != null) {
+			cell[index] = null;
+			size--;
+			markedTiles.remove(tile);
+			if (isEmpty(cell)) {
+				cells.remove(cellLocation);
+			}
+		}
+		return tile;
+	}
+
+	// runs the consumer on all existing tiles within min and max (inclusive, in region coordinates)
+	void forEachInRange(int minX, int minZ, int maxX, int maxZ, Consumer<Tile> consumer) {
+		for (int cx = minX >> CELL_SHIFT; cx <= maxX >> CELL_SHIFT; cx++) {
+			for (int cz = minZ >> CELL_SHIFT; cz <= maxZ >> CELL_SHIFT; cz++) {
+				Tile[] cell = cells.get(Point2i.toLong(cx, cz));
+				if (cell == null) {
+					continue;
+				}
+				for (Tile tile : cell) {
+					if (tile != null && tile.isInRange(minX, minZ, maxX, maxZ)) {
+						consumer.accept(tile);
+					}
+				}
+			}
+		}
+	}
+
+	// has to be called whenever the selection of a tile changes
+	void updateMarked(Tile tile) {
+		if (tile.isMarked() || tile.getMarkedChunks().size() > 0) {
+			markedTiles.add(tile);
+		} else {
+			markedTiles.remove(tile);
+		}
+	}
+
+	Collection<Tile> getMarkedTiles() {
+		return Collections.unmodifiableSet(markedTiles);
+	}
+
+	List<Tile> values() {
+		List<Tile> values = new ArrayList<>(size);
+		cells.forEach((k, cell) -> {
+			for (Tile tile : cell) {
+				if (tile != null) {
+					values.add(tile);
+				}
+			}
+		});
+		return values;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		cells.clear();
+		markedTiles.clear();
+		size = 0;
+	}
+
+	private static long cellLocation(Point2i region) {
+		return Point2i.toLong(region.getX() >> CELL_SHIFT, region.getY() >> CELL_SHIFT);
+	}
+
+	private static int index(int x, int z) {
+		return (z & CELL_MASK) * CELL_SIZE + (x & CELL_MASK);
+	}
+
+	private static boolean isEmpty(Tile[] cell) {
+		for (Tile tile : cell) {
+			if (tile != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,5 +1,6 @@
 package net.querz.mcaselector.tiles;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
@@ -8,12 +9,15 @@ import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.*;
 import net.querz.mcaselector.Config;
+import net.querz.mcaselector.io.ImageHelper;
 import net.querz.mcaselector.io.MCAFilePipe;
+import net.querz.mcaselector.io.OverviewImageGenerator;
 import net.querz.mcaselector.io.RegionImageGenerator;
 import net.querz.mcaselector.ui.Color;
 import net.querz.mcaselector.ui.Window;
 import net.querz.mcaselector.debug.Debug;
 import net.querz.mcaselector.key.KeyActivator;
+import net.querz.mcaselector.point.LongHashSet;
 import net.querz.mcaselector.point.Point2f;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.progress.Timer;
@@ -22,6 +26,7 @@ import java.awt.datatransfer.ClipboardOwner;
 import java.awt.datatransfer.Transferable;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -39,14 +44,24 @@ public class TileMap extends Canvas implements ClipboardOwner {
 
 	private final Window window;
 
-	private final GraphicsContext context;
+	// the tiles are drawn onto the TileMap itself, everything else is drawn onto
+	// transparent overlays stacked on top of it so that they can be redrawn independently
+	private final TileMapLayer tileLayer;
+	private final TileMapLayer selectionLayer;
+	private final TileMapLayer pasteLayer;
+	private final TileMapLayer gridLayer;
+	private final List<TileMapLayer> layers;
+
+	// collects all render requests and executes them once per pulse
+	private final AnimationTimer renderTimer;
+	private boolean renderScheduled = false;
 
 	private Point2f offset = new Point2f();
 
 	private Point2f previousMouseLocation = null;
 	private Point2f firstMouseLocation = null;
 
-	private final Map<Point2i, Tile> tiles = new HashMap<>();
+	private final TileIndex tiles = new TileIndex();
 	private final Set<Tile> visibleTiles = ConcurrentHashMap.newKeySet();
 
 	private int selectedChunks = 0;
@@ -68,6 +83,9 @@ public class TileMap extends Canvas implements ClipboardOwner {
 
 	private final ImagePool imgPool;
 
+	// overview images by overview coordinate, used when zoomed out further than Config.MAX_SCALE
+	private final Map<Point2i, Image> overviewImages = new HashMap<>();
+
 	private Map<Point2i, Set<Point2i>> pastedChunks;
 	private File pastedWorld;
 	private Map<Point2i, Image> pastedChunksCache;
@@ -77,7 +95,19 @@ public class TileMap extends Canvas implements ClipboardOwner {
 	public TileMap(Window window, int width, int height) {
 		super(width, height);
 		this.window = window;
-		context = getGraphicsContext2D();
+		tileLayer = new TileMapLayer(this, this, this::drawTiles);
+		selectionLayer = new TileMapLayer(this, createOverlay(width, height), this::drawSelection);
+		pasteLayer = new TileMapLayer(this, createOverlay(width, height), this::drawPaste);
+		gridLayer = new TileMapLayer(this, createOverlay(width, height), this::drawGrid);
+		layers = Arrays.asList(tileLayer, selectionLayer, pasteLayer, gridLayer);
+		renderTimer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				stop();
+				renderScheduled = false;
+				render();
+			}
+		};
 		setFocusTraversable(true);
 		this.setOnMousePressed(this::onMousePressed);
 		this.setOnMouseReleased(e -> onMouseReleased());
@@ -88,6 +118,12 @@ public class TileMap extends Canvas implements ClipboardOwner {
 		this.setOnScroll(this::onScroll);
 		this.setOnScrollStarted(e -> onScrollStarted());
 		this.setOnScrollFinished(e -> onScrollFinished());
+		OverviewImageGenerator.setInvalidationListener(overview -> Platform.runLater(() -> {
+			if (overviewImages.remove(overview) != null && isInOverviewMode()) {
+				tileLayer.invalidate();
+				requestRender();
+			}
+		}));
 		keyActivator.registerAction(KeyCode.W, c -> offset = offset.sub(0, (c.contains(KeyCode.SHIFT) ? 10 : 5) * scale));
 		keyActivator.registerAction(KeyCode.A, c -> offset = offset.sub((c.contains(KeyCode.SHIFT) ? 10 : 5) * scale, 0));
 		keyActivator.registerAction(KeyCode.S, c -> offset = offset.add(0, (c.contains(KeyCode.SHIFT) ? 10 : 5) * scale));
@@ -108,7 +144,7 @@ public class TileMap extends Canvas implements ClipboardOwner {
 	}
 
 	private void updateScale(float oldScale) {
-		scale = scale < Config.MAX_SCALE ? Math.max(scale, Config.MIN_SCALE) : Config.MAX_SCALE;
+		scale = scale < Config.MAX_OVERVIEW_SCALE ? Math.max(scale, Config.MIN_SCALE) : Config.MAX_OVERVIEW_SCALE;
 		if (oldScale != scale) {
 			//calculate the difference between the old max and the new max point
 			Point2f diff = offset.add((float) getWidth() * oldScale, (float) getHeight() * oldScale)
@@ -127,6 +163,12 @@ public class TileMap extends Canvas implements ClipboardOwner {
 		}
 	}
 
+	private static Canvas createOverlay(int width, int height) {
+		Canvas overlay = new Canvas(width, height);
+		overlay.setMouseTransparent(true);
+		return overlay;
+	}
+
 	public static Point2f getRegionGridMin(Point2f offset, float scale) {
 		Point2i min = offset.toPoint2i().blockToRegion();
 		Point2i regionOffset = min.regionToBlock().sub((int) offset.getX(), (int) offset.getY());
@@ -152,7 +194,8 @@ public class TileMap extends Canvas implements ClipboardOwner {
 			pastedWorld = null;
 			pastedChunksCache = null;
 			pastedChunksOffset = null;
-			update();
+			pasteLayer.invalidate();
+			requestRender();
 		}
 	}
 
@@ -238,7 +281,7 @@ public class TileMap extends Canvas implements ClipboardOwner {
 			} else if (event.getButton() == MouseButton.SECONDARY) {
 				mark(event.getX(), event.getY(), false);
 			}
-			update();
+			requestRender();
 		}
 	}
 
@@ -257,40 +300,83 @@ public class TileMap extends Canvas implements ClipboardOwner {
 				offset = offset.add(diff.mul(scale));
 			}
 			previousMouseLocation = mouseLocation;
+			update();
 		} else if (!disabled && event.getButton() == MouseButton.PRIMARY) {
 			if (pastedChunks != null) {
 				Point2f mouseLocation = new Point2f(event.getX(), event.getY());
 				Point2f diff = mouseLocation.sub(firstMouseLocation).mul(scale);
 				pastedChunksOffset = firstPastedChunksOffset.add(diff.toPoint2i().div(16));
+				pasteLayer.invalidate();
 			} else {
 				mark(event.getX(), event.getY(), true);
 			}
+			requestRender();
 		} else if (!disabled && event.getButton() == MouseButton.SECONDARY) {
 			mark(event.getX(), event.getY(), false);
+			requestRender();
 		}
-		update();
 	}
 
 	public void redrawOverlays() {
-		for (Map.Entry<Point2i, Tile> entry : tiles.entrySet()) {
-			if (entry.getValue().markedChunksImage != null) {
-				TileImage.createMarkedChunksImage(entry.getValue(), getZoomLevel());
-			}
-		}
 		if (pastedChunksCache != null) {
 			pastedChunksCache.clear();
 		}
+		selectionLayer.invalidate();
+		pasteLayer.invalidate();
 	}
 
+	// redraws everything during the next pulse
 	public void update() {
+		for (TileMapLayer layer : layers) {
+			layer.invalidate();
+		}
+		requestRender();
+	}
+
+	// only redraws the tile of this region during the next pulse, e.g. after its image has been loaded
+	public void updateTile(Point2i region) {
+		if (isInOverviewMode()) {
+			return;
+		}
+		tileLayer.invalidate(region);
+		requestRender();
+	}
+
+	private void requestRender() {
+		if (!renderScheduled) {
+			renderScheduled = true;
+			renderTimer.start();
+		}
+	}
+
+	private void render() {
 		Timer t = new Timer();
 		runUpdateListeners();
 
+		if (tileLayer.isFullyDirty()) {
+			cleanupTiles();
+		}
+
+		if (pasteLayer.isFullyDirty()) {
+			cleanupPastedChunksCache();
+		}
+
+		for (TileMapLayer layer : layers) {
+			if (layer.isDirty()) {
+				layer.render();
+			}
+		}
+		totalUpdates++;
+		Debug.dumpfToConsoleOnly("map update #%d: %s ", totalUpdates, t);
+	}
+
+	private void cleanupTiles() {
 		// removes jobs from queue that are no longer needed
 		MCAFilePipe.validateJobs(j -> {
 			if (j instanceof  RegionImageGenerator.MCAImageLoadJob) {
 				RegionImageGenerator.MCAImageLoadJob job = (RegionImageGenerator.MCAImageLoadJob) j;
-				if (!job.getTile().isVisible(this)) {
+				// region images generated for an overview image are needed even if they are not visible
+				if (!job.getTile().isVisible(this) && !OverviewImageGenerator.isGenerating(job.getTile().getLocation())) {
 					Debug.dumpf("removing %s for tile %s from queue", job.getClass().getSimpleName(), job.getTile().getLocation());
 					RegionImageGenerator.setLoading(job.getTile(), false);
 					return true;
@@ -300,8 +386,14 @@ public class TileMap extends Canvas implements ClipboardOwner {
 		});
 
 		// removes tiles from visibleTiles if they are no longer visible
+		int ox = (int) offset.getX();
+		int oz = (int) offset.getY();
+		int minX = (ox - TILE_VISIBILITY_THRESHOLD * Tile.SIZE) >> 9;
+		int minZ = (oz - TILE_VISIBILITY_THRESHOLD * Tile.SIZE) >> 9;
+		int maxX = ((int) (ox + getWidth() * scale) + TILE_VISIBILITY_THRESHOLD * Tile.SIZE) >> 9;
+		int maxZ = ((int) (oz + getHeight() * scale) + TILE_VISIBILITY_THRESHOLD * Tile.SIZE) >> 9;
 		for (Tile tile : visibleTiles) {
-			if (!tile.isVisible(this, TILE_VISIBILITY_THRESHOLD)) {
+			if (!tile.isInRange(minX, minZ, maxX, maxZ)) {
 				visibleTiles.remove(tile);
 				if (!RegionImageGenerator.isLoading(tile)) {
 					tile.unload();
@@ -311,7 +403,9 @@ public class TileMap extends Canvas implements ClipboardOwner {
 				}
 			}
 		}
+	}
 
+	private void cleanupPastedChunksCache() {
 		if (pastedChunksCache != null) {
 			pastedChunksCache.keySet().removeIf(img -> {
 				Point2i o = offset.toPoint2i();
@@ -326,10 +420,6 @@ public class TileMap extends Canvas implements ClipboardOwner {
 						|| location.getX() > max.getX() || location.getY() > max.getY();
 			});
 		}
-
-		draw(context);
-		totalUpdates++;
-		Debug.dumpfToConsoleOnly("map update #%d: %s ", totalUpdates, t);
 	}
 
 	public void disable(boolean disabled) {
@@ -368,14 +458,20 @@ public class TileMap extends Canvas implements ClipboardOwner {
 		return Tile.getZoomLevel(scale);
 	}
 
+	public boolean isInOverviewMode() {
+		return scale > Config.MAX_SCALE;
+	}
+
 	public void setShowRegionGrid(boolean showRegionGrid) {
 		this.showRegionGrid = showRegionGrid;
-		update();
+		gridLayer.invalidate();
+		requestRender();
 	}
 
 	public void setShowChunkGrid(boolean showChunkGrid) {
 		this.showChunkGrid = showChunkGrid;
-		update();
+		gridLayer.invalidate();
+		requestRender();
 	}
 
 	public void goTo(int x, int z) {
@@ -405,9 +501,15 @@ public class TileMap extends Canvas implements ClipboardOwner {
 		return tiles.size();
 	}
 
+	public List<Canvas> getOverlays() {
+		return Arrays.asList(selectionLayer.getCanvas(), pasteLayer.getCanvas(), gridLayer.getCanvas());
+	}
+
 	public void clear() {
 		tiles.clear();
 		visibleTiles.clear();
+		overviewImages.clear();
+		OverviewImageGenerator.clear();
 		imgPool.clear();
 		selectedChunks = 0;
 
@@ -429,11 +531,13 @@ public class TileMap extends Canvas implements ClipboardOwner {
 	}
 
 	public void clearSelection() {
-		for (Map.Entry<Point2i, Tile> entry : tiles.entrySet()) {
-			entry.getValue().clearMarks();
+		for (Tile tile : new ArrayList<>(tiles.getMarkedTiles())) {
+			tile.clearMarks();
+			tiles.updateMarked(tile);
 		}
 		selectedChunks = 0;
-		update();
+		selectionLayer.invalidate();
+		requestRender();
 	}
 
 	public void unloadTiles() {
@@ -449,17 +553,19 @@ public class TileMap extends Canvas implements ClipboardOwner {
 	public Map<Point2i, Set<Point2i>> getMarkedChunks() {
 		Map<Point2i, Set<Point2i>> chunks = new HashMap<>();
 
-		for (Map.Entry<Point2i, Tile> entry : tiles.entrySet()) {
-			if (entry.getValue().isMarked()) {
-				chunks.put(entry.getKey(), null);
+		for (Tile tile : tiles.getMarkedTiles()) {
+			if (tile.isMarked()) {
+				chunks.put(tile.getLocation(), null);
 				continue;
 			}
-			Set<Point2i> markedChunks = entry.getValue().getMarkedChunks();
+			LongHashSet markedChunks = tile.getMarkedChunks();
 			if (markedChunks.size() == 0) {
 				continue;
 			}
 			// cloning marked chunks for clipboard copy-pasting in the same instance
-			chunks.put(entry.getKey(), new HashSet<>(markedChunks));
+			Set<Point2i> regionChunks = new HashSet<>(markedChunks.size());
+			markedChunks.forEach(chunk -> regionChunks.add(Point2i.fromLong(chunk)));
+			chunks.put(tile.getLocation(), regionChunks);
 		}
 		return chunks;
 	}
@@ -467,12 +573,7 @@ public class TileMap extends Canvas implements ClipboardOwner {
 	public void setMarkedChunks(Map<Point2i, Set<Point2i>> chunks) {
 		clearSelection();
 		for (Map.Entry<Point2i, Set<Point2i>> entry : chunks.entrySet()) {
-			Point2i region = entry.getKey();
-			Tile tile = tiles.get(region);
-			if (tile == null) {
-				tile = new Tile(region);
-				tiles.put(region, tile);
-			}
+			Tile tile = tiles.getOrCreate(entry.getKey());
 			if (entry.getValue() == null) {
 				tile.mark(true);
 				selectedChunks += Tile.CHUNKS;
@@ -482,17 +583,13 @@ public class TileMap extends Canvas implements ClipboardOwner {
 					selectedChunks++;
 				}
 			}
+			tiles.updateMarked(tile);
 		}
 	}
 
 	public void addMarkedChunks(Map<Point2i, Set<Point2i>> chunks) {
 		for (Map.Entry<Point2i, Set<Point2i>> entry : chunks.entrySet()) {
-			Point2i region = entry.getKey();
-			Tile tile = tiles.get(region);
-			if (tile == null) {
-				tile = new Tile(region);
-				tiles.put(region, tile);
-			}
+			Tile tile = tiles.getOrCreate(entry.getKey());
 			if (entry.getValue() == null) {
 				selectedChunks -= tile.getMarkedChunks().size();
 				tile.mark(true);
@@ -505,6 +602,7 @@ public class TileMap extends Canvas implements ClipboardOwner {
 					tile.mark(chunk);
 				}
 			}
+			tiles.updateMarked(tile);
 		}
 	}
 
@@ -570,18 +668,15 @@ public class TileMap extends Canvas implements ClipboardOwner {
 			for (int x = firstRegionBlock.getX(); x <= regionBlock.getX(); x++) {
 				for (int z = firstRegionBlock.getY(); z <= regionBlock.getY(); z++) {
 					Point2i region = new Point2i(x, z);
-					Tile tile = tiles.get(region);
-					if (tile == null) {
-						tile = tiles.put(region, new Tile(region));
-					}
-					if (tile != null) {
-						if (tile.isMarked() && !marked) {
-							selectedChunks -= Tile.CHUNKS;
-						} else if (!tile.isMarked() && marked) {
-							selectedChunks += Tile.CHUNKS - tile.getMarkedChunks().size();
-						}
-						tile.mark(marked);
+					Tile tile = tiles.getOrCreate(region);
+					if (tile.isMarked() && !marked) {
+						selectedChunks -= Tile.CHUNKS;
+					} else if (!tile.isMarked() && marked) {
+						selectedChunks += Tile.CHUNKS - tile.getMarkedChunks().size();
 					}
+					tile.mark(marked);
+					tiles.updateMarked(tile);
+					selectionLayer.invalidate(region);
 				}
 			}
 		} else {
@@ -591,58 +686,128 @@ public class TileMap extends Canvas implements ClipboardOwner {
 			Set<Tile> changedTiles = new HashSet<>();
 			for (int x = firstChunkBlock.getX(); x <= chunkBlock.getX(); x++) {
 				for (int z = firstChunkBlock.getY(); z <= chunkBlock.getY(); z++) {
-					Point2i chunk = new Point2i(x, z);
-					Tile tile = tiles.get(chunk.chunkToRegion());
-					if (tile == null) {
-						tile = tiles.put(chunk.chunkToRegion(), new Tile(chunk.chunkToRegion()));
-					}
-					if (tile != null) {
-						if (tile.isMarked(chunk) && !marked) {
-							selectedChunks--;
-							tile.unMark(chunk);
-							changedTiles.add(tile);
-						} else if (!tile.isMarked(chunk) && marked) {
-							selectedChunks++;
-							tile.mark(chunk);
-							changedTiles.add(tile);
-						}
+					long chunk = Point2i.toLong(x, z);
+					Tile tile = tiles.getOrCreate(x >> 5, z >> 5);
+					if (tile.isMarked(chunk) && !marked) {
+						selectedChunks--;
+						tile.unMark(chunk);
+						changedTiles.add(tile);
+					} else if (!tile.isMarked(chunk) && marked) {
+						selectedChunks++;
+						tile.mark(chunk);
+						changedTiles.add(tile);
 					}
 				}
 			}
-			changedTiles.forEach(tile -> TileImage.createMarkedChunksImage(tile, getZoomLevel()));
+			changedTiles.forEach(tile -> {
+				tiles.updateMarked(tile);
+				selectionLayer.invalidate(tile.getLocation());
+			});
 		}
 	}
 
-	private void draw(GraphicsContext ctx) {
+	// returns the location of the top left corner of a region on the screen
+	Point2f getRegionScreenLocation(Point2i region) {
+		Point2i regionOffset = region.regionToBlock().sub((int) offset.getX(), (int) offset.getY());
+		return new Point2f(regionOffset.getX() / scale, regionOffset.getY() / scale);
+	}
+
+	// region is null if the whole layer needs to be redrawn
+	private void drawTiles(GraphicsContext ctx, Point2i region) {
 		ctx.setFill(Tile.EMPTY_CHUNK_BACKGROUND_COLOR.makeJavaFXColor());
-		ctx.fillRect(0, 0, getWidth(), getHeight());
-		runOnVisibleRegions(region -> {
-			if (!tiles.containsKey(region)) {
-				tiles.put(region, new Tile(region));
+		if (region == null) {
+			ctx.fillRect(0, 0, getWidth(), getHeight());
+			if (isInOverviewMode()) {
+				drawOverviews(ctx);
+			} else {
+				runOnVisibleRegions(r -> drawTile(ctx, r), new Point2f());
 			}
-			Tile tile = tiles.get(region);
-			visibleTiles.add(tile);
+		} else {
+			Point2f p = getRegionScreenLocation(region);
+			ctx.fillRect(p.getX(), p.getY(), Tile.SIZE / scale, Tile.SIZE / scale);
+			drawTile(ctx, region);
+		}
+	}
+
+	private void drawTile(GraphicsContext ctx, Point2i region) {
+		Tile tile = tiles.getOrCreate(region);
+		visibleTiles.add(tile);
+
+		if (!tile.isLoaded() && !tile.isLoading()) {
+			imgPool.requestImage(tile, getZoomLevel());
+		}
+
+		TileImage.draw(tile, ctx, scale, getRegionScreenLocation(region));
+	}
 
-			Point2i regionOffset = region.regionToBlock().sub((int) offset.getX(), (int) offset.getY());
+	private void drawOverviews(GraphicsContext ctx) {
+		Point2i min = OverviewImageGenerator.regionToOverview(offset.toPoint2i().blockToRegion());
+		Point2i max = OverviewImageGenerator.regionToOverview(offset.add((float) getWidth() * scale, (float) getHeight() * scale).toPoint2i().blockToRegion());
+		float size = OverviewImageGenerator.SIZE_IN_BLOCKS / scale;
 
-			if (!tile.isLoaded() && !tile.isLoading()) {
-				imgPool.requestImage(tile, getZoomLevel());
+		// discard overview images that are far away
+		overviewImages.keySet().removeIf(o -> o.getX() < min.getX() - 1 || o.getY() < min.getY() - 1 || o.getX() > max.getX() + 1 || o.getY() > max.getY() + 1);
+
+		for (int x = min.getX(); x <= max.getX(); x++) {
+			for (int z = min.getY(); z <= max.getY(); z++) {
+				Point2i overview = new Point2i(x, z);
+				Point2f p = getRegionScreenLocation(overview.shiftLeft(4));
+				Image image = overviewImages.get(overview);
+				if (image == null) {
+					requestOverview(overview);
+					image = ImageHelper.getEmptyTileImage();
+				}
+				ctx.drawImage(image, p.getX(), p.getY(), size, size);
+			}
+		}
+	}
+
+	private void requestOverview(Point2i overview) {
+		if (Config.getWorldDir() == null || OverviewImageGenerator.isLoading(overview)) {
+			return;
+		}
+		OverviewImageGenerator.load(overview, Config.getWorldUUID(), (image, world) -> Platform.runLater(() -> {
+			if (world.equals(Config.getWorldUUID())) {
+				// if there is nothing to show, we remember that by using the empty image
+				overviewImages.put(overview, image == null ? ImageHelper.getEmptyTileImage() : image);
+				if (isInOverviewMode()) {
+					tileLayer.invalidate();
+					requestRender();
+				}
 			}
-			Point2f p = new Point2f(regionOffset.getX() / scale, regionOffset.getY() / scale);
+		}));
+	}
 
-			TileImage.draw(tile, ctx, scale, p);
+	private void drawSelection(GraphicsContext ctx, Point2i region) {
+		if (region == null) {
+			// only existing tiles can have a selection, so we don't need to look at every visible region
+			Point2i min = offset.toPoint2i().blockToRegion();
+			Point2i max = offset.add((float) getWidth() * scale, (float) getHeight() * scale).toPoint2i().blockToRegion();
+			tiles.forEachInRange(min.getX(), min.getY(), max.getX(), max.getY(),
+					tile -> TileImage.drawSelection(tile, ctx, scale, getRegionScreenLocation(tile.getLocation())));
+		} else {
+			drawTileSelection(ctx, region);
+		}
+	}
 
-		}, new Point2f());
+	private void drawTileSelection(GraphicsContext ctx, Point2i region) {
+		Tile tile = tiles.get(region);
+		if (tile != null) {
+			TileImage.drawSelection(tile, ctx, scale, getRegionScreenLocation(region));
+		}
+	}
 
+	// the paste layer is always redrawn completely because it moves independently of the tiles
+	private void drawPaste(GraphicsContext ctx, Point2i region) {
 		if (pastedChunks != null) {
-			runOnVisibleRegions(region -> {
-				Point2i regionOffset = region.regionToBlock().sub((int) offset.getX(), (int) offset.getY());
-				Point2f p = new Point2f(regionOffset.getX() / scale, regionOffset.getY() / scale);
-				p = p.add(pastedChunksOffset.mul(16).div(scale).toPoint2f());
-				drawPastedChunks(ctx, region, p);
+			runOnVisibleRegions(r -> {
+				Point2f p = getRegionScreenLocation(r).add(pastedChunksOffset.mul(16).div(scale).toPoint2f());
+				drawPastedChunks(ctx, r, p);
 			}, pastedChunksOffset.mul(16).toPoint2f());
 		}
+	}
 
+	private void drawGrid(GraphicsContext ctx, Point2i region) {
 		if (showRegionGrid) {
 			drawRegionGrid(ctx);
 		}
@@ -779,8 +944,15 @@ public class TileMap extends Canvas implements ClipboardOwner {
 
 	@Override
 	public void resize(double width, double height) {
+		if (width == getWidth() && height == getHeight()) {
+			return;
+		}
 		setWidth(width);
 		setHeight(height);
+		for (Canvas overlay : getOverlays()) {
+			overlay.setWidth(width);
+			overlay.setHeight(height);
+		}
 		update();
 	}
 
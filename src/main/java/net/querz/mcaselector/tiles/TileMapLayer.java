@@ -0,0 +1,75 @@
+package net.querz.mcaselector.tiles;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import net.querz.mcaselector.point.Point2f;
+import net.querz.mcaselector.point.Point2i;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// a single drawing layer of the TileMap.
+// keeps track of whether the whole layer or only some regions need to be redrawn
+// and only redraws those parts on render().
+class TileMapLayer {
+
+	private final TileMap tileMap;
+	private final Canvas canvas;
+	private final GraphicsContext context;
+
+	// called with a region coordinate when only that region needs to be redrawn
+	// or with null when the whole layer needs to be redrawn
+	private final BiConsumer<GraphicsContext, Point2i> renderer;
+
+	private boolean dirty = true;
+	private final Set<Point2i> dirtyRegions = new HashSet<>();
+
+	TileMapLayer(TileMap tileMap, Canvas canvas, BiConsumer<GraphicsContext, Point2i> renderer) {
+		this.tileMap = tileMap;
+		this.canvas = canvas;
+		this.renderer = renderer;
+		context = canvas.getGraphicsContext2D();
+	}
+
+	Canvas getCanvas() {
+		return canvas;
+	}
+
+	void invalidate() {
+		dirty = true;
+		dirtyRegions.clear();
+	}
+
+	void invalidate(Point2i region) {
+		if (!dirty) {
+			dirtyRegions.add(region);
+		}
+	}
+
+	boolean isDirty() {
+		return dirty || !dirtyRegions.isEmpty();
+	}
+
+	boolean isFullyDirty() {
+		return dirty;
+	}
+
+	void render() {
+		if (dirty) {
+			context.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+			renderer.accept(context, null);
+		} else {
+			float size = Tile.SIZE / tileMap.getScale();
+			for (Point2i region : dirtyRegions) {
+				Point2f p = tileMap.getRegionScreenLocation(region);
+				if (p.getX() + size < 0 || p.getY() + size < 0 || p.getX() > canvas.getWidth() || p.getY() > canvas.getHeight()) {
+					continue;
+				}
+				context.clearRect(p.getX(), p.getY(), size, size);
+				renderer.accept(context, region);
+			}
+		}
+		dirty = false;
+		dirtyRegions.clear();
+	}
+}
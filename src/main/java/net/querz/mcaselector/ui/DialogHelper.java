@@ -204,6 +204,7 @@ public class DialogHelper {
 			Config.setPasteChunksColor(new Color(r.getPasteColor()));
 			Config.setShade(r.getShade());
 			Config.setShadeWater(r.getShadeWater());
+			Config.setCheckBlockStates(r.getCheckBlockStates());
 			Config.setDebug(r.getDebug());
 			tileMap.redrawOverlays();
 			tileMap.update();
@@ -189,7 +189,7 @@ public class NBTEditorDialog extends Dialog<NBTEditorDialog.Result> {
 			return;
 		}
 
-		MCAFile dest = MCAFile.readAll(file, new ByteArrayPointer(data));
+		MCAFile dest = MCAFile.readAllRaw(file, new ByteArrayPointer(data));
 
 		Point2i rel = chunkLocation.mod(32);
 		rel.setX(rel.getX() < 0 ? 32 + rel.getX() : rel.getX());
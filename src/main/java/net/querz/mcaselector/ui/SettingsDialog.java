@@ -47,6 +47,7 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 	private final Button pasteChunksColorPreview = new Button();
 	private final CheckBox shadeCheckBox = new CheckBox();
 	private final CheckBox shadeWaterCheckBox = new CheckBox();
+	private final CheckBox checkBlockStatesCheckBox = new CheckBox();
 	private final CheckBox debugCheckBox = new CheckBox();
 
 	private Color regionSelectionColor = Config.getRegionSelectionColor().makeJavaFXColor();
@@ -77,6 +78,7 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 			pasteChunksColorPreview.setBackground(new Background(new BackgroundFill(Config.DEFAULT_PASTE_CHUNKS_COLOR.makeJavaFXColor(), CornerRadii.EMPTY, Insets.EMPTY)));
 			shadeCheckBox.setSelected(Config.DEFAULT_SHADE);
 			shadeWaterCheckBox.setSelected(Config.DEFAULT_SHADE_WATER);
+			checkBlockStatesCheckBox.setSelected(Config.DEFAULT_CHECK_BLOCK_STATES);
 			debugCheckBox.setSelected(Config.DEFAULT_DEBUG);
 		});
 
@@ -93,6 +95,7 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 						pasteChunksColor,
 						shadeCheckBox.isSelected(),
 						shadeWaterCheckBox.isSelected(),
+						checkBlockStatesCheckBox.isSelected(),
 						debugCheckBox.isSelected()
 				);
 			}
@@ -135,6 +138,7 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 		pasteChunksColorPreview.setBackground(new Background(new BackgroundFill(pasteChunksColor, CornerRadii.EMPTY, Insets.EMPTY)));
 		shadeCheckBox.setSelected(Config.shade());
 		shadeWaterCheckBox.setSelected(Config.shadeWater());
+		checkBlockStatesCheckBox.setSelected(Config.checkBlockStates());
 		debugCheckBox.setSelected(Config.debug());
 
 		regionSelectionColorPreview.setOnMousePressed(e -> {
@@ -174,7 +178,8 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_REGION_COLOR), 0, 7, 1, 1);
 		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_SHADE), 0, 8, 1, 1);
 		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_SHADE_WATER), 0, 9, 1, 1);
-		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_PRINT_DEBUG), 0, 10, 1, 1);
+		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_CHECK_BLOCK_STATES), 0, 10, 1, 1);
+		grid.add(UIFactory.label(Translation.DIALOG_SETTINGS_PRINT_DEBUG), 0, 11, 1, 1);
 		grid.add(languages, 1, 0, 2, 1);
 		grid.add(readThreadsSlider, 1, 1, 1, 1);
 		grid.add(processThreadsSlider, 1, 2, 1, 1);
@@ -185,7 +190,8 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 		grid.add(pasteChunksColorPreview, 1, 7, 2, 1);
 		grid.add(shadeCheckBox, 1, 8, 2, 1);
 		grid.add(shadeWaterCheckBox, 1, 9, 2, 1);
-		grid.add(debugCheckBox, 1, 10, 2, 1);
+		grid.add(checkBlockStatesCheckBox, 1, 10, 2, 1);
+		grid.add(debugCheckBox, 1, 11, 2, 1);
 		grid.add(UIFactory.attachTextFieldToSlider(readThreadsSlider), 2, 1, 1, 1);
 		grid.add(UIFactory.attachTextFieldToSlider(processThreadsSlider), 2, 2, 1, 1);
 		grid.add(UIFactory.attachTextFieldToSlider(writeThreadsSlider), 2, 3, 1, 1);
@@ -207,11 +213,12 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 		private final int readThreads, processThreads, writeThreads, maxLoadedFiles;
 		private final Color regionColor, chunkColor, pasteColor;
 		private final boolean shadeWater;
+		private final boolean checkBlockStates;
 		private final boolean shade;
 		private final boolean debug;
 		private final Locale locale;
 
-		public Result(Locale locale, int readThreads, int processThreads, int writeThreads, int maxLoadedFiles, Color regionColor, Color chunkColor, Color pasteColor, boolean shade, boolean shadeWater, boolean debug) {
+		public Result(Locale locale, int readThreads, int processThreads, int writeThreads, int maxLoadedFiles, Color regionColor, Color chunkColor, Color pasteColor, boolean shade, boolean shadeWater, boolean checkBlockStates, boolean debug) {
 			this.locale = locale;
 			this.readThreads = readThreads;
 			this.processThreads = processThreads;
@@ -222,6 +229,7 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 			this.pasteColor = pasteColor;
 			this.shade = shade;
 			this.shadeWater = shadeWater;
+			this.checkBlockStates = checkBlockStates;
 			this.debug = debug;
 		}
 
@@ -265,6 +273,10 @@ public class SettingsDialog extends Dialog<SettingsDialog.Result> {
 			return shadeWater;
 		}
 
+		public boolean getCheckBlockStates() {
+			return checkBlockStates;
+		}
+
 		public boolean getDebug() {
 			return debug;
 		}
@@ -4,6 +4,7 @@ import javafx.beans.value.ChangeListener;
 import javafx.css.*;
 import javafx.geometry.Pos;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import net.querz.mcaselector.io.ImageHelper;
@@ -109,7 +110,10 @@ public class TileMapBox extends HBox {
 		primaryStage.widthProperty().addListener(sizeListener);
 		primaryStage.heightProperty().addListener(sizeListener);
 		setAlignment(Pos.TOP_LEFT);
-		getChildren().add(tileMap);
+		// the overlays of the TileMap are stacked on top of it
+		Pane layers = new Pane(tileMap);
+		layers.getChildren().addAll(tileMap.getOverlays());
+		getChildren().add(layers);
 		bind();
 	}
 
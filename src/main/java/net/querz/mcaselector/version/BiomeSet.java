@@ -0,0 +1,62 @@
+package net.querz.mcaselector.version;
+
+import java.util.Arrays;
+
+// the biome ids present in a chunk or required by a filter, with one bit per id.
+// vanilla biome ids fit into 256 bits, higher custom ids grow the set as needed.
+public final class BiomeSet {
+
+	private final long[] words;
+
+	private BiomeSet(long[] words) {
+		this.words = words;
+	}
+
+	// creates a set from raw biome ids in a single pass, negative ids are ignored
+	public static BiomeSet of(int[] ids) {
+		long[] words = new long[4];
+		for (int id : ids) {
+			if (id < 0) {
+				continue;
+			}
+			int word = id >> 6;
+			if (word >= words.length) {
+				words = Arrays.copyOf(words, word + 1);
+			}
+			words[word] |= 1L << id;
+		}
+		return new BiomeSet(words);
+	}
+
+	public static BiomeSet valueOf(long[] words) {
+		return new BiomeSet(words);
+	}
+
+	// returns true if all ids in other are contained in this set
+	public boolean containsAll(BiomeSet other) {
+		for (int i = 0; i < other.words.length; i++) {
+			long word = i < words.length ? words[i] : 0;
+			if ((other.words[i] & ~word) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// returns a new set with all ids of this and the other set
+	public BiomeSet or(BiomeSet other) {
+		long[] words = Arrays.copyOf(this.words, Math.max(this.words.length, other.words.length));
+		for (int i = 0; i < other.words.length; i++) {
+			words[i] |= other.words[i];
+		}
+		return new BiomeSet(words);
+	}
+
+	public long[] toLongArray() {
+		int length = words.length;
+		while (length > 0 && words[length - 1] == 0) {
+			length--;
+		}
+		return Arrays.copyOf(words, length);
+	}
+}
@@ -0,0 +1,53 @@
+package net.querz.mcaselector.version;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// the amount of blocks per palette entry and per layer of every section of a chunk.
+// a histogram is decoded once per chunk and can then be queried by any number of block amount filters.
+public class BlockHistogram {
+
+	private final List<Section> sections = new ArrayList<>(16);
+
+	// names contains the namespaced block name of each palette entry, or null if the entry has no name.
+	// counts contains the amount of blocks of each palette entry per layer at paletteIndex * 16 + layer.
+	public void addSection(int y, String[] names, int[] counts) {
+		sections.add(new Section(y, names, counts));
+	}
+
+	// returns the amount of blocks with one of these names between minY and maxY (inclusive)
+	public int count(BlockNameSet names, int minY, int maxY) {
+		int count = 0;
+		for (Section section : sections) {
+			int sectionMinY = section.y << 4;
+			// computed in long, because an unlimited range is Integer.MIN_VALUE to Integer.MAX_VALUE
+			int from = (int) Math.min(Math.max((long) minY - sectionMinY, 0), 16);
+			int to = (int) Math.max(Math.min((long) maxY - sectionMinY, 15), -1);
+			if (from > to) {
+				continue;
+			}
+			for (int i = 0; i < section.names.length; i++) {
+				if (section.names[i] == null || names.indexOf(section.names[i]) == -1) {
+					continue;
+				}
+				for (int layer = from, offset = i << 4; layer <= to; layer++) {
+					count += section.counts[offset + layer];
+				}
+			}
+		}
+		return count;
+	}
+
+	private static class Section {
+
+		private final int y;
+		private final String[] names;
+		private final int[] counts;
+
+		private Section(int y, String[] names, int[] counts) {
+			this.y = y;
+			this.names = names;
+			this.counts = counts;
+		}
+	}
+}
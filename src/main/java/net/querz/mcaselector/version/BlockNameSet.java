@@ -0,0 +1,57 @@
+package net.querz.mcaselector.version;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// a precompiled set of block names used to search chunk palettes.
+// every name has a fixed index, so a palette can be scanned once for all names while tracking the matches in a bitmask.
+public final class BlockNameSet {
+
+	private final String[] names;
+	private final String[] namespacedNames;
+	private final Map<String, Integer> indices;
+
+	public BlockNameSet(Collection<String> names) {
+		Set<String> unique = new LinkedHashSet<>(names);
+		this.names = unique.toArray(new String[0]);
+		namespacedNames = new String[this.names.length];
+		indices = new HashMap<>(this.names.length * 2);
+		for (int i = 0; i < this.names.length; i++) {
+			namespacedNames[i] = ("minecraft:" + this.names[i]).intern();
+			indices.put(namespacedNames[i], i);
+		}
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	// returns the name at this index without namespace
+	public String getName(int index) {
+		return names[index];
+	}
+
+	// returns the name at this index with namespace, as it appears in a palette
+	public String getNamespacedName(int index) {
+		return namespacedNames[index];
+	}
+
+	// returns the index of a namespaced block name as it appears in a palette, or -1 if it's not part of this set
+	public int indexOf(String namespacedName) {
+		Integer index = indices.get(namespacedName);
+		return index == null ? -1 : index;
+	}
+
+	// returns a bitmask with one bit per name in this set
+	public long[] createMask() {
+		return new long[(names.length + 63) >> 6];
+	}
+
+	@Override
+	public String toString() {
+		return String.join(",", names);
+	}
+}
@@ -12,4 +12,7 @@ public interface ChunkDataProcessor {
 	void drawChunk(CompoundTag root, ColorMapping colorMapping, int x, int z, int[] pixelBuffer, int[] waterPixels, byte[] terrainHeights, byte[] waterHeights, boolean water);
 
 	void mergeChunks(CompoundTag source, CompoundTag destination, List<Range> ranges);
+
+	// the part of mergeChunks() that merges Level.Structures, which is the only part of the chunks it reads or changes
+	void mergeStructures(CompoundTag source, CompoundTag destination, List<Range> ranges);
 }
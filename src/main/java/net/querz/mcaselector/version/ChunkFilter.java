@@ -1,12 +1,22 @@
 package net.querz.mcaselector.version;
 
 import net.querz.nbt.tag.CompoundTag;
+import java.util.Set;
 
 public interface ChunkFilter {
 
-	boolean matchBlockNames(CompoundTag data, String... names);
+	// returns true if the chunk contains all names.
+	// if checkBlockStates is true, a palette entry only matches if it is referenced in the block states of its section.
+	boolean matchBlockNames(CompoundTag data, BlockNameSet names, boolean checkBlockStates);
 
-	boolean matchBiomeIDs(CompoundTag data, int... ids);
+	// returns all block names in the palettes of this chunk, or null if this version does not use palettes
+	Set<String> getBlockNames(CompoundTag data);
+
+	// returns the raw biome ids of this chunk, or null if the chunk does not have biomes
+	int[] getBiomeIDs(CompoundTag data);
+
+	// returns the amount of blocks per palette entry and layer of all sections, or null if this version does not use palettes
+	BlockHistogram getBlockHistogram(CompoundTag data);
 
 	void changeBiome(CompoundTag data, int id);
 
@@ -10,6 +10,7 @@ import net.querz.mcaselector.version.anvil113.Anvil113ColorMapping;
 import net.querz.mcaselector.version.anvil115.Anvil115ChunkDataProcessor;
 import net.querz.mcaselector.version.anvil115.Anvil115ChunkFilter;
 import net.querz.mcaselector.version.anvil116.Anvil116ChunkDataProcessor;
+import net.querz.mcaselector.version.anvil116.Anvil116ChunkFilter;
 
 public class VersionController {
 
@@ -34,7 +35,7 @@ public class VersionController {
 		ANVIL_1_12(0, 1343, Anvil112ChunkDataProcessor.class, Anvil112ColorMapping.class, Anvil112ChunkFilter.class),
 		ANVIL_1_13(1344, 2201, Anvil113ChunkDataProcessor.class, Anvil113ColorMapping.class, Anvil113ChunkFilter.class),
 		ANVIL_1_15(2202, 2526, Anvil115ChunkDataProcessor.class, Anvil113ColorMapping.class, Anvil115ChunkFilter.class),
-		ANVIL_1_16(2527, Integer.MAX_VALUE, Anvil116ChunkDataProcessor.class, Anvil113ColorMapping.class, Anvil115ChunkFilter.class);
+		ANVIL_1_16(2527, Integer.MAX_VALUE, Anvil116ChunkDataProcessor.class, Anvil113ColorMapping.class, Anvil116ChunkFilter.class);
 
 		private final int minVersion, maxVersion;
 		private final Class<? extends ChunkDataProcessor> chunkDataProcessor;
@@ -8,7 +8,7 @@ import net.querz.nbt.tag.CompoundTag;
 import net.querz.nbt.tag.ListTag;
 import net.querz.nbt.tag.Tag;
 import java.util.*;
-import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import static net.querz.mcaselector.validation.ValidationHelper.*;
 
 public class Anvil112ChunkDataProcessor implements ChunkDataProcessor {
@@ -163,7 +163,8 @@ public class Anvil112ChunkDataProcessor implements ChunkDataProcessor {
 		}
 	}
 
-	private void mergeStructures(CompoundTag source, CompoundTag destination, List<Range> ranges) {
+	@Override
+	public void mergeStructures(CompoundTag source, CompoundTag destination, List<Range> ranges) {
 		CompoundTag sourceStarts = withDefault(() -> source.getCompoundTag("Level").getCompoundTag("Structures").getCompoundTag("Starts"), new CompoundTag());
 		CompoundTag destinationStarts = withDefault(() -> destination.getCompoundTag("Level").getCompoundTag("Structures").getCompoundTag("Starts"), new CompoundTag());
 
@@ -265,44 +266,42 @@ public class Anvil112ChunkDataProcessor implements ChunkDataProcessor {
 		initLevel(destination).put(name, destinationList);
 	}
 
-	private void mergeCompoundTagLists(CompoundTag source, CompoundTag destination, List<Range> ranges, String name, Function<CompoundTag, Integer> ySupplier) {
+	private void mergeCompoundTagLists(CompoundTag source, CompoundTag destination, List<Range> ranges, String name, ToIntFunction<CompoundTag> ySupplier) {
 		ListTag<CompoundTag> sourceElements = withDefault(() -> source.getCompoundTag("Level").getListTag(name).asCompoundTagList(), new ListTag<>(CompoundTag.class));
 		ListTag<CompoundTag> destinationElements = withDefault(() -> destination.getCompoundTag("Level").getListTag(name).asCompoundTagList(), new ListTag<>(CompoundTag.class));
 
 		initLevel(destination).put(name, mergeLists(sourceElements, destinationElements, ranges, ySupplier));
 	}
 
-	private <T extends Tag<?>> ListTag<T> mergeLists(ListTag<T> source, ListTag<T> destination, List<Range> ranges, Function<T, Integer> ySupplier) {
-		@SuppressWarnings("unchecked")
-		ListTag<T> resultList = (ListTag<T>) ListTag.createUnchecked(null);
-
-		Set<T> resultSet = new HashSet<>();
-		for (T dest : destination) {
-			resultSet.add(dest);
-		}
+	// keeps the destination elements outside of the ranges and adds the source elements inside of the ranges.
+	// the elements are only compared by their section index, so the lists are merged in a single pass each.
+	private ListTag<CompoundTag> mergeLists(ListTag<CompoundTag> source, ListTag<CompoundTag> destination, List<Range> ranges, ToIntFunction<CompoundTag> ySupplier) {
+		ListTag<CompoundTag> resultList = new ListTag<>(CompoundTag.class);
 
-		elem: for (T destinationElement : destination) {
-			for (Range range : ranges) {
-				if (range.contains(ySupplier.apply(destinationElement))) {
-					resultSet.remove(destinationElement);
-					continue elem;
-				}
+		for (CompoundTag destinationElement : destination) {
+			if (!isInRanges(ranges, ySupplier.applyAsInt(destinationElement))) {
+				resultList.add(destinationElement);
 			}
 		}
 
-		elem: for (T sourceElement : source) {
-			for (Range range : ranges) {
-				if (range.contains(ySupplier.apply(sourceElement))) {
-					resultSet.add(sourceElement);
-					continue elem;
-				}
+		for (CompoundTag sourceElement : source) {
+			if (isInRanges(ranges, ySupplier.applyAsInt(sourceElement))) {
+				resultList.add(sourceElement);
 			}
 		}
 
-		resultList.addAll(resultSet);
 		return resultList;
 	}
 
+	private static boolean isInRanges(List<Range> ranges, int y) {
+		for (int i = 0; i < ranges.size(); i++) {
+			if (ranges.get(i).contains(y)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private CompoundTag initLevel(CompoundTag c) {
 		CompoundTag level = c.getCompoundTag("Level");
 		if (level == null) {
@@ -1,6 +1,8 @@
 package net.querz.mcaselector.version.anvil112;
 
 import net.querz.mcaselector.debug.Debug;
+import net.querz.mcaselector.version.BlockHistogram;
+import net.querz.mcaselector.version.BlockNameSet;
 import net.querz.mcaselector.version.ChunkFilter;
 import net.querz.nbt.tag.CompoundTag;
 import net.querz.nbt.tag.ListTag;
@@ -75,15 +77,17 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 		}
 	}
 
+	// 1.12 chunks don't have palettes, so the blocks are always checked directly
 	@Override
-	public boolean matchBlockNames(CompoundTag data, String... names) {
+	public boolean matchBlockNames(CompoundTag data, BlockNameSet names, boolean checkBlockStates) {
 		ListTag<CompoundTag> sections = withDefault(() -> data.getCompoundTag("Level").getListTag("Sections").asCompoundTagList(), null);
 		if (sections == null) {
 			return false;
 		}
 		int c = 0;
 		nameLoop:
-		for (String name : names) {
+		for (int n = 0; n < names.size(); n++) {
+			String name = names.getName(n);
 			BlockData[] bd = mapping.get(name);
 			if (bd == null) {
 				Debug.dump("No mapping found for " + name);
@@ -113,7 +117,7 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 				}
 			}
 		}
-		return names.length == c;
+		return names.size() == c;
 	}
 
 	private static class BlockData {
@@ -132,19 +136,30 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 	}
 
 	@Override
-	public boolean matchBiomeIDs(CompoundTag data, int... ids) {
-		if (!data.containsKey("Level") || withDefault(() -> data.getCompoundTag("Level").getByteArray("Biomes"), null) == null) {
-			return false;
+	public Set<String> getBlockNames(CompoundTag data) {
+		// block ids can't be mapped to block names without their data value, so there is nothing to index
+		return null;
+	}
+
+	@Override
+	public BlockHistogram getBlockHistogram(CompoundTag data) {
+		return null;
+	}
+
+	@Override
+	public int[] getBiomeIDs(CompoundTag data) {
+		if (!data.containsKey("Level")) {
+			return null;
 		}
-		filterLoop: for (int filterID : ids) {
-			for (byte dataID : data.getCompoundTag("Level").getByteArray("Biomes")) {
-				if (filterID == dataID) {
-					continue filterLoop;
-				}
-			}
-			return false;
+		byte[] biomes = withDefault(() -> data.getCompoundTag("Level").getByteArray("Biomes"), null);
+		if (biomes == null) {
+			return null;
+		}
+		int[] ids = new int[biomes.length];
+		for (int i = 0; i < biomes.length; i++) {
+			ids[i] = biomes[i] & 0xFF;
 		}
-		return true;
+		return ids;
 	}
 
 	@Override
@@ -1,17 +1,23 @@
 package net.querz.mcaselector.version.anvil113;
 
+import net.querz.mcaselector.version.BlockHistogram;
+import net.querz.mcaselector.version.BlockNameSet;
 import net.querz.mcaselector.version.ChunkFilter;
 import net.querz.nbt.tag.CompoundTag;
+import net.querz.nbt.tag.IntArrayTag;
 import net.querz.nbt.tag.ListTag;
 import net.querz.nbt.tag.LongArrayTag;
+import net.querz.nbt.tag.StringTag;
 import net.querz.nbt.tag.Tag;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import static net.querz.mcaselector.validation.ValidationHelper.*;
 
 public class Anvil113ChunkFilter implements ChunkFilter {
 
 	@Override
-	public boolean matchBlockNames(CompoundTag data, String... names) {
+	public boolean matchBlockNames(CompoundTag data, BlockNameSet names, boolean checkBlockStates) {
 		CompoundTag level = withDefault(() -> data.getCompoundTag("Level"), null);
 		if (level == null) {
 			return false;
@@ -24,44 +30,197 @@ public class Anvil113ChunkFilter implements ChunkFilter {
 		if (sections == null) {
 			return false;
 		}
-		int c = 0;
-		nameLoop:
-		for (String name : names) {
-			for (CompoundTag t : sections) {
-				ListTag<?> rawPalette = withDefault(() -> t.getListTag("Palette"), null);
-				if (rawPalette == null) {
+
+		// one bit per name that has already been found
+		long[] found = names.createMask();
+		int remaining = names.size();
+		int[] candidates = null;
+		int[] blockStateIndices = null;
+
+		for (CompoundTag t : sections) {
+			ListTag<?> rawPalette = withDefault(() -> t.getListTag("Palette"), null);
+			if (rawPalette == null) {
+				continue;
+			}
+			ListTag<CompoundTag> palette = catchClassCastException(rawPalette::asCompoundTagList);
+			if (palette == null) {
+				continue;
+			}
+
+			// scan the palette once for all names that have not been found yet
+			int candidateCount = 0;
+			for (int i = 0; i < palette.size(); i++) {
+				Tag<?> rawName = palette.get(i).get("Name");
+				if (!(rawName instanceof StringTag)) {
 					continue;
 				}
-				ListTag<CompoundTag> palette = catchClassCastException(rawPalette::asCompoundTagList);
-				if (palette == null) {
+				int nameIndex = names.indexOf(((StringTag) rawName).getValue());
+				if (nameIndex == -1 || (found[nameIndex >> 6] & 1L << nameIndex) != 0) {
 					continue;
 				}
-				for (CompoundTag p : palette) {
-					if (("minecraft:" + name).equals(withDefault(() -> p.getString("Name"), null))) {
-						c++;
-						continue nameLoop;
+				if (checkBlockStates) {
+					if (candidates == null || candidates.length < palette.size()) {
+						candidates = new int[palette.size()];
+					}
+					candidates[candidateCount++] = i;
+				} else {
+					found[nameIndex >> 6] |= 1L << nameIndex;
+					if (--remaining == 0) {
+						return true;
+					}
+				}
+			}
+
+			if (candidateCount == 0) {
+				continue;
+			}
+
+			// only palette entries that are referenced in the block states are actually in this section
+			long[] blockStates = withDefault(() -> t.getLongArray("BlockStates"), null);
+			if (blockStates == null) {
+				continue;
+			}
+			if (blockStateIndices == null) {
+				blockStateIndices = new int[4096];
+			}
+			if (!unpackBlockStates(blockStates, palette.size(), blockStateIndices)) {
+				continue;
+			}
+			boolean[] used = new boolean[palette.size()];
+			for (int index : blockStateIndices) {
+				if (index < used.length) {
+					used[index] = true;
+				}
+			}
+			for (int i = 0; i < candidateCount; i++) {
+				if (!used[candidates[i]]) {
+					continue;
+				}
+				int nameIndex = names.indexOf(palette.get(candidates[i]).getString("Name"));
+				if ((found[nameIndex >> 6] & 1L << nameIndex) == 0) {
+					found[nameIndex >> 6] |= 1L << nameIndex;
+					if (--remaining == 0) {
+						return true;
 					}
 				}
 			}
 		}
-		return names.length == c;
+		return remaining == 0;
 	}
 
-	@Override
-	public boolean matchBiomeIDs(CompoundTag data, int... ids) {
-		if (!data.containsKey("Level") || withDefault(() -> data.getCompoundTag("Level").getIntArrayTag("Biomes"), null) == null) {
+	// unpacks the 4096 palette indices of a section into indices.
+	// in 1.13 - 1.15, the indices are packed with the minimum number of bits and can span over two longs.
+	// returns false if the length of the block states does not match.
+	protected boolean unpackBlockStates(long[] blockStates, int paletteSize, int[] indices) {
+		if (blockStates.length == 0 || blockStates.length % 64 != 0) {
 			return false;
 		}
+		int bits = blockStates.length >> 6;
+		long clean = (1L << bits) - 1;
+		for (int i = 0, bitIndex = 0; i < 4096; i++, bitIndex += bits) {
+			int longIndex = bitIndex >> 6;
+			int startBit = bitIndex & 63;
+			long value = blockStates[longIndex] >>> startBit;
+			if (startBit + bits > 64) {
+				value |= blockStates[longIndex + 1] << (64 - startBit);
+			}
+			indices[i] = (int) (value & clean);
+		}
+		return true;
+	}
 
-		filterLoop: for (int filterID : ids) {
-			for (int dataID : data.getCompoundTag("Level").getIntArray("Biomes")) {
-				if (filterID == dataID) {
-					continue filterLoop;
+	@Override
+	public Set<String> getBlockNames(CompoundTag data) {
+		Set<String> names = new HashSet<>();
+		CompoundTag level = withDefault(() -> data.getCompoundTag("Level"), null);
+		if (level == null) {
+			return names;
+		}
+		Tag<?> rawSections = level.get("Sections");
+		if (rawSections == null || rawSections.getID() == LongArrayTag.ID) {
+			return names;
+		}
+		ListTag<CompoundTag> sections = catchClassCastException(((ListTag<?>) rawSections)::asCompoundTagList);
+		if (sections == null) {
+			return names;
+		}
+		for (CompoundTag t : sections) {
+			ListTag<?> rawPalette = withDefault(() -> t.getListTag("Palette"), null);
+			if (rawPalette == null) {
+				continue;
+			}
+			ListTag<CompoundTag> palette = catchClassCastException(rawPalette::asCompoundTagList);
+			if (palette == null) {
+				continue;
+			}
+			for (CompoundTag p : palette) {
+				String name = withDefault(() -> p.getString("Name"), null);
+				if (name != null) {
+					names.add(name);
 				}
 			}
-			return false;
 		}
-		return true;
+		return names;
+	}
+
+	@Override
+	public BlockHistogram getBlockHistogram(CompoundTag data) {
+		BlockHistogram histogram = new BlockHistogram();
+		CompoundTag level = withDefault(() -> data.getCompoundTag("Level"), null);
+		if (level == null) {
+			return histogram;
+		}
+		Tag<?> rawSections = level.get("Sections");
+		if (rawSections == null || rawSections.getID() == LongArrayTag.ID) {
+			return histogram;
+		}
+		ListTag<CompoundTag> sections = catchClassCastException(((ListTag<?>) rawSections)::asCompoundTagList);
+		if (sections == null) {
+			return histogram;
+		}
+		int[] blockStateIndices = new int[4096];
+		for (CompoundTag t : sections) {
+			ListTag<?> rawPalette = withDefault(() -> t.getListTag("Palette"), null);
+			if (rawPalette == null) {
+				continue;
+			}
+			ListTag<CompoundTag> palette = catchClassCastException(rawPalette::asCompoundTagList);
+			long[] blockStates = withDefault(() -> t.getLongArray("BlockStates"), null);
+			if (palette == null || palette.size() == 0 || blockStates == null || !t.containsKey("Y")) {
+				continue;
+			}
+			if (!unpackBlockStates(blockStates, palette.size(), blockStateIndices)) {
+				continue;
+			}
+
+			String[] names = new String[palette.size()];
+			for (int i = 0; i < names.length; i++) {
+				Tag<?> rawName = palette.get(i).get("Name");
+				if (rawName instanceof StringTag) {
+					names[i] = ((StringTag) rawName).getValue();
+				}
+			}
+
+			// indices are ordered by y, z, x, so every 256 indices make up one layer
+			int[] counts = new int[names.length << 4];
+			for (int i = 0; i < 4096; i++) {
+				int index = blockStateIndices[i];
+				if (index < names.length) {
+					counts[(index << 4) + (i >> 8)]++;
+				}
+			}
+			histogram.addSection(t.getByte("Y"), names, counts);
+		}
+		return histogram;
+	}
+
+	@Override
+	public int[] getBiomeIDs(CompoundTag data) {
+		if (!data.containsKey("Level")) {
+			return null;
+		}
+		IntArrayTag biomes = withDefault(() -> data.getCompoundTag("Level").getIntArrayTag("Biomes"), null);
+		return biomes == null ? null : biomes.getValue();
 	}
 
 	@Override
@@ -10,6 +10,8 @@ import static net.querz.mcaselector.validation.ValidationHelper.*;
 
 public class Anvil115ChunkDataProcessor extends Anvil113ChunkDataProcessor {
 
+	private static final int BIOMES_PER_SECTION = 64;
+
 	@Override
 	public void mergeChunks(CompoundTag source, CompoundTag destination, List<Range> ranges) {
 		super.mergeChunks(source, destination, ranges);
@@ -17,64 +19,32 @@ public class Anvil115ChunkDataProcessor extends Anvil113ChunkDataProcessor {
 		mergeBiomes(source, destination, ranges);
 	}
 
+	// biomes are stored in 4x4x4 cells, so the 64 biomes of a section are stored in a contiguous slice of the array
 	protected void mergeBiomes(CompoundTag source, CompoundTag destination, List<Range> ranges) {
 		int[] sourceBiomes = withDefault(() -> source.getCompoundTag("Level").getIntArray("Biomes"), null);
 		int[] destinationBiomes = withDefault(() -> destination.getCompoundTag("Level").getIntArray("Biomes"), null);
 
-		if (destinationBiomes == null) {
+		if (destinationBiomes == null || destinationBiomes.length != 1024) {
 			// if there is no destination, we will let minecraft set the biome
-			destinationBiomes = new int[1024];
-			Arrays.fill(destinationBiomes, -1);
+			return;
 		}
 
-		if (sourceBiomes == null) {
-			// if there is no source biome, we set the biome to -1
-			// merge biomes
-			for (Range range : ranges) {
-				int m = Math.min(range.getTo(), 15);
-				for (int i = Math.max(range.getFrom(), 0); i <= m; i++) {
-					setSectionBiomes(-1, destinationBiomes, i);
-				}
-			}
-		} else {
-			for (Range range : ranges) {
-				int m = Math.min(range.getTo(), 15);
-				for (int i = Math.max(range.getFrom(), 0); i <= m; i++) {
-					copySectionBiomes(sourceBiomes, destinationBiomes, i);
-				}
-			}
-		}
-	}
+		// if there is no source biome, we set the biome to -1
+		boolean hasSourceBiomes = sourceBiomes != null && sourceBiomes.length == 1024;
 
-	private void copySectionBiomes(int[] sourceBiomes, int[] destinationBiomes, int sectionY) {
-		for (int y = 0; y < 4; y++) {
-			int biomeY = sectionY * 4 + y;
-			for (int x = 0; x < 4; x++) {
-				for (int z = 0; z < 4; z++) {
-					setBiomeAt(destinationBiomes, x, biomeY, z, getBiomeAt(sourceBiomes, x, biomeY, z));
+		for (Range range : ranges) {
+			int m = Math.min(range.getTo(), 15);
+			for (int i = Math.max(range.getFrom(), 0); i <= m; i++) {
+				int from = i * BIOMES_PER_SECTION;
+				if (hasSourceBiomes) {
+					System.arraycopy(sourceBiomes, from, destinationBiomes, from, BIOMES_PER_SECTION);
+				} else {
+					Arrays.fill(destinationBiomes, from, from + BIOMES_PER_SECTION, -1);
 				}
 			}
 		}
 	}
 
-	private void setSectionBiomes(int biome, int[] destinationBiomes, int sectionY) {
-		for (int y = 0; y < 4; y++) {
-			int biomeY = sectionY * 4 + y;
-			for (int x = 0; x < 4; x++) {
-				for (int z = 0; z < 4; z++) {
-					setBiomeAt(destinationBiomes, x, biomeY, z, biome);
-				}
-			}
-		}
-	}
-
-	private int getBiomeAt(int[] biomes, int biomeX, int biomeY, int biomeZ) {
-		if (biomes == null || biomes.length != 1024) {
-			return -1;
-		}
-		return biomes[getBiomeIndex(biomeX, biomeY, biomeZ)];
-	}
-
 	@Override
 	protected int getBiomeAtBlock(int[] biomes, int biomeX, int biomeY, int biomeZ) {
 		if (biomes == null || biomes.length != 1024) {
@@ -83,14 +53,6 @@ public class Anvil115ChunkDataProcessor extends Anvil113ChunkDataProcessor {
 		return biomes[getBiomeIndex(biomeX / 4, biomeY / 4, biomeZ / 4)];
 	}
 
-	private void setBiomeAt(int[] biomes, int biomeX, int biomeY, int biomeZ, int biomeID) {
-		if (biomes == null || biomes.length != 1024) {
-			biomes = new int[1024];
-			Arrays.fill(biomes, -1);
-		}
-		biomes[getBiomeIndex(biomeX, biomeY, biomeZ)] = biomeID;
-	}
-
 	private int getBiomeIndex(int x, int y, int z) {
 		return y * 16 + z * 4 + x;
 	}
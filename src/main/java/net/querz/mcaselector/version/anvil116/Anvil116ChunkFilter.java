@@ -0,0 +1,24 @@
+package net.querz.mcaselector.version.anvil116;
+
+import net.querz.mcaselector.version.anvil115.Anvil115ChunkFilter;
+
+public class Anvil116ChunkFilter extends Anvil115ChunkFilter {
+
+	// since 1.16, indices don't span over two longs anymore, so the number of bits can't be derived from the length of the block states
+	@Override
+	protected boolean unpackBlockStates(long[] blockStates, int paletteSize, int[] indices) {
+		int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(paletteSize - 1));
+		int indicesPerLong = 64 / bits;
+		if (blockStates.length != (4096 + indicesPerLong - 1) / indicesPerLong) {
+			return false;
+		}
+		int clean = (1 << bits) - 1;
+		int i = 0;
+		for (long l : blockStates) {
+			for (int j = 0; j < indicesPerLong && i < 4096; j++, i++) {
+				indices[i] = (int) (l >>> (j * bits)) & clean;
+			}
+		}
+		return true;
+	}
+}